@@ -0,0 +1,69 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.PositionTable;
+import chess.engine.AnalysisEngine;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lazy SMP scaling: one fixed-time analysis per operation at each thread
+ * count. The {@code nodes} counter is reported as nodes per second, so
+ * reading it down the thread counts gives the scaling curve; ideally it
+ * doubles with every doubling of threads until the cores run out.
+ * <p>
+ * Run just this benchmark with
+ * {@code java -jar benchmarks/target/benchmarks.jar AnalysisBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class AnalysisBenchmark {
+    private static final long ANALYSIS_MILLIS = 200;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int threads;
+
+    @Param({"MIDDLEGAME"})
+    public Positions position;
+
+    private ChessGame game;
+    private PositionTable table;
+    private AnalysisEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = position.game();
+        table = new PositionTable(256);
+        engine = new AnalysisEngine(threads, table);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTable() {
+        table.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long nodes;
+    }
+
+    @Benchmark
+    public SearchResult analyze(Counters counters) {
+        SearchResult result = engine.analyze(game, SearchLimits.millis(ANALYSIS_MILLIS));
+        counters.nodes += result.nodes();
+        return result;
+    }
+}
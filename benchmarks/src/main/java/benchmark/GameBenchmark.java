@@ -0,0 +1,131 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.PositionTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ChessGame queries the server runs on every move: legal moves per piece,
+ * check, checkmate and a validated makeMove.
+ * <p>
+ * A game remembers its attacks and the shared {@link PositionTable} remembers
+ * its status, so after the first call the plain benchmarks measure the cached
+ * path, as a server answering repeated queries sees it. The {@code uncached}
+ * ones start every call from an empty table and attack cache, and are the
+ * numbers to compare against move generation before the caches existed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public Positions position;
+
+    private ChessGame game;
+    private final List<ChessPosition> ownPieces = new ArrayList<>();
+    private ChessMove firstMove;
+
+    @Setup
+    public void setUp() {
+        game = position.game();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                var square = new ChessPosition(row, col);
+                ChessPiece piece = game.getBoard().getPiece(square);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    ownPieces.add(square);
+                }
+            }
+        }
+        firstMove = game.legalMoves().iterator().next();
+    }
+
+    /**
+     * validMoves for every piece of the side to move, which is what a client
+     * asking to highlight moves costs the server over a full turn
+     */
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (ChessPosition square : ownPieces) {
+            blackhole.consume(game.validMoves(square));
+        }
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+
+    /**
+     * A copy of the position with nothing cached. The shared table is kept
+     * small for these runs so clearing it between calls stays cheap.
+     */
+    @State(Scope.Thread)
+    public static class ColdGame {
+        ChessGame game;
+
+        @Setup(Level.Invocation)
+        public void setUp(GameBenchmark parent) {
+            PositionTable.shared().clear();
+            game = new ChessGame(parent.game);
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dchess.positionTable.mb=1")
+    public void validMovesUncached(ColdGame cold, Blackhole blackhole) {
+        for (ChessPosition square : ownPieces) {
+            blackhole.consume(cold.game.validMoves(square));
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dchess.positionTable.mb=1")
+    public boolean isInCheckUncached(ColdGame cold) {
+        return cold.game.isInCheck(cold.game.getTeamTurn());
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dchess.positionTable.mb=1")
+    public boolean isInCheckmateUncached(ColdGame cold) {
+        return cold.game.isInCheckmate(cold.game.getTeamTurn());
+    }
+
+    @State(Scope.Thread)
+    public static class FreshGame {
+        ChessGame game;
+
+        @Setup(Level.Invocation)
+        public void setUp(GameBenchmark parent) {
+            game = parent.position.game();
+        }
+    }
+
+    /**
+     * A validated makeMove on a freshly loaded game. Setup runs per invocation,
+     * so compare this number between runs rather than reading it in isolation.
+     */
+    @Benchmark
+    public ChessGame makeMove(FreshGame fresh) throws InvalidMoveException {
+        fresh.game.makeMove(firstMove);
+        return fresh.game;
+    }
+}
@@ -0,0 +1,58 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pseudo-legal move generation through ChessPiece.pieceMoves, one piece type at
+ * a time. Each invocation generates moves for every piece of that type and
+ * colour to move on the board.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceMovesBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public Positions position;
+
+    @Param({"KING", "QUEEN", "BISHOP", "KNIGHT", "ROOK", "PAWN"})
+    public ChessPiece.PieceType pieceType;
+
+    private ChessBoard board;
+    private final List<ChessPosition> squares = new ArrayList<>();
+    private final List<ChessPiece> pieces = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        var game = position.game();
+        board = game.getBoard();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                var square = new ChessPosition(row, col);
+                var piece = board.getPiece(square);
+                if (piece != null && piece.getPieceType() == pieceType && piece.getTeamColor() == game.getTeamTurn()) {
+                    squares.add(square);
+                    pieces.add(piece);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void pieceMoves(Blackhole blackhole) {
+        for (int i = 0; i < squares.size(); i++) {
+            blackhole.consume(pieces.get(i).pieceMoves(board, squares.get(i)));
+        }
+    }
+}
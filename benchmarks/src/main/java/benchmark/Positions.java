@@ -0,0 +1,52 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+
+/**
+ * Fixed positions every benchmark runs on, so numbers taken before and after an
+ * engine change measure the same work.
+ */
+public enum Positions {
+    /**
+     * Ruy Lopez after 1.e4 e5 2.Nf3 Nc6 3.Bb5 a6, white to move
+     */
+    OPENING("r1bqkbnr/1ppp1ppp/p1n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 0 4"),
+
+    /**
+     * Symmetrical Italian middlegame with every minor piece still on, white to move
+     */
+    MIDDLEGAME("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"),
+
+    /**
+     * Rook endgame with pawns on one wing, white to move
+     */
+    ENDGAME("8/5pk1/6p1/3R4/7P/6P1/r4PK1/8 w - - 0 40");
+
+    private final String fen;
+
+    Positions(String fen) {
+        this.fen = fen;
+    }
+
+    /**
+     * @return the position in FEN
+     */
+    public String fen() {
+        return fen;
+    }
+
+    /**
+     * @return a fresh game set up on this position
+     */
+    public ChessGame game() {
+        return ChessGame.fromFen(fen);
+    }
+
+    /**
+     * @return a fresh board holding this position
+     */
+    public ChessBoard board() {
+        return ChessBoard.fromFen(fen);
+    }
+}
@@ -0,0 +1,89 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.GameCodec;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+import serialization.Serialization;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson round trips of ChessGame, the work every LoadGameMessage does on each
+ * move, with the reflective adapters and with the compact ones from
+ * {@link Serialization}, against the binary {@link GameCodec} form GameDAO
+ * stores. The encoded size of each form is printed at setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public Positions position;
+
+    private final Gson gson = new Gson();
+    private final Gson compactGson = Serialization.gson();
+    private ChessGame game;
+    private String json;
+    private String compactJson;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        game = position.game();
+        json = gson.toJson(game);
+        compactJson = compactGson.toJson(game);
+        bytes = GameCodec.encode(game);
+        System.out.printf("%n%s: JSON %d bytes, compact JSON %d bytes, binary %d bytes%n",
+                position, json.length(), compactJson.length(), bytes.length);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return gson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame fromJson() {
+        return gson.fromJson(json, ChessGame.class);
+    }
+
+    @Benchmark
+    public ChessGame roundTrip() {
+        return gson.fromJson(gson.toJson(game), ChessGame.class);
+    }
+
+    @Benchmark
+    public String compactToJson() {
+        return compactGson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame compactFromJson() {
+        return compactGson.fromJson(compactJson, ChessGame.class);
+    }
+
+    @Benchmark
+    public ChessGame compactRoundTrip() {
+        return compactGson.fromJson(compactGson.toJson(game), ChessGame.class);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return GameCodec.encode(game);
+    }
+
+    @Benchmark
+    public ChessGame decode() {
+        return GameCodec.decode(bytes);
+    }
+
+    @Benchmark
+    public ChessGame binaryRoundTrip() {
+        return GameCodec.decode(GameCodec.encode(game));
+    }
+}
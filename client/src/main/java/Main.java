@@ -3,6 +3,7 @@ import client.ServerFacade;
 import ui.WebSocketFacade;
 import ui.MainRunner;
 import chess.ChessBoard;
+import serialization.Serialization;
 
 import java.util.Scanner;
 
@@ -12,6 +13,7 @@ public class Main {
         System.out.println("♕ 240 Chess Client: " + piece);
 
         var serverUrl = args.length == 1 ? args[0] : "http://localhost:8080";
+        Serialization.warm();
         var scanner = new Scanner(System.in);
         var serverFacade = new ServerFacade(serverUrl);
         var webSocketFacade = new WebSocketFacade(serverUrl);
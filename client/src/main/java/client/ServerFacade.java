@@ -12,6 +12,7 @@ import model.AuthData;
 import model.GameData;
 import model.UserData;
 import com.google.gson.Gson;
+import serialization.Serialization;
 import ui.EscapeSequences;
 
 import java.io.InputStreamReader;
@@ -30,7 +31,7 @@ public class ServerFacade {
 
     public ServerFacade(String serverUrl) {
         this.serverUrl = serverUrl;
-        this.gson = new Gson();
+        this.gson = Serialization.gson();
         this.chessBoard = new ChessBoard();
         this.chessBoard.resetBoard(); // Initialize board with default pieces
     }
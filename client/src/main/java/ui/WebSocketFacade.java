@@ -3,6 +3,7 @@ package ui;
 import chess.*;
 import client.Helper;
 import com.google.gson.Gson;
+import serialization.Serialization;
 
 import model.GameData;
 import websocket.commands.UserGameCommand;
@@ -18,7 +19,7 @@ import java.util.Collection;
 
 
 public class WebSocketFacade extends Endpoint {
-    private final Gson gson = new Gson();
+    private final Gson gson = Serialization.gson();
     private final String serverUrl;
     private Session session;
 
@@ -78,6 +79,9 @@ public class WebSocketFacade extends Endpoint {
                 System.out.println("Black Player: " + gameData.getBlackUsername());
                 System.out.println("Is Game Over: " + gameData.getGame().isGameOver());
                 System.out.println("Current Turn: " + gameData.getGame().getTeamTurn());
+                if (gameData.getGame().getStatus() != ChessGame.GameStatus.NORMAL) {
+                    System.out.println("Status: " + gameData.getGame().getStatus());
+                }
                 System.out.println("Current Board:");
                 System.out.println(Helper.formatBoard(Helper.convertBoardToDisplay(chessBoard)));
             } else {
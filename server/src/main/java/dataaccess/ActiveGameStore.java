@@ -0,0 +1,408 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
+import model.GameData;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the games that have WebSocket clients connected in memory, so a move
+ * is applied to the live game instead of reading and rewriting the row.
+ * <p>
+ * Moves and other updates to an active game only mark it dirty. A
+ * background task writes what is dirty each {@code maxLagMillis}: moves are
+ * appended to the game's move log in one batch, and the game's row is
+ * rewritten only when its players change, it ends, or every
+ * {@value #SNAPSHOT_INTERVAL} plies, so the log a read has to replay stays
+ * short. The database is never more than about {@code maxLagMillis} behind.
+ * {@link #flush(int)} writes a game at once, for when it ends;
+ * {@link #flushAll()} writes everything, for shutdown.
+ * <p>
+ * Each client connection attaches to its game once and detaches once. When
+ * the last one detaches, the game is marked retiring and written outside
+ * the store's lock, then dropped from memory. If that write fails the game
+ * stays dirty and the flusher drops it once it has written it. Games without
+ * clients read and write straight through to {@link GameDAO}.
+ * <p>
+ * Callers mutating a live game must hold its {@link GameData} monitor, which
+ * the flusher also takes while it copies the game. They must not call
+ * {@link #flush(int)} or {@link #detach(int, Object)} while holding it.
+ */
+public final class ActiveGameStore {
+    private static final Logger LOG = Logger.getLogger(ActiveGameStore.class.getName());
+    private static final long DEFAULT_MAX_LAG_MILLIS = 250;
+    static final int SNAPSHOT_INTERVAL = 32;
+    private static final ActiveGameStore INSTANCE = new ActiveGameStore(new GameDAO(), DEFAULT_MAX_LAG_MILLIS);
+
+    private final GameDAO gameDAO;
+    private final Map<Integer, Active> active = new ConcurrentHashMap<>();
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    // Held while copying and writing, so writes reach the database in the order they were copied
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher;
+
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    /**
+     * A snapshot of the store's state and counters since it was created
+     *
+     * @param active  games held in memory
+     * @param dirty   games with updates not yet written
+     * @param updates updates made to active games
+     * @param moves   moves appended to the move log by flushes
+     * @param writes  game rows written by flushes
+     * @param batches flushes that wrote anything
+     */
+    public record Metrics(int active, int dirty, long updates, long moves, long writes, long batches) {
+    }
+
+    /**
+     * A live game, the clients keeping it in memory, and what it has not
+     * written yet. The unwritten state is guarded by the game's monitor.
+     */
+    private static final class Active {
+        final GameData game;
+        // One entry per connection, so two connections with one auth token count twice
+        final Set<Object> clients = Collections.newSetFromMap(new IdentityHashMap<>());
+        final List<GameDAO.LoggedMove> pendingMoves = new ArrayList<>();
+        boolean snapshotDue;
+        // Set once the last client leaves, guarded by the store's monitor
+        boolean retiring;
+
+        Active(GameData game) {
+            this.game = game;
+        }
+    }
+
+    ActiveGameStore(GameDAO gameDAO, long maxLagMillis) {
+        this.gameDAO = gameDAO;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "active-game-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushDirty, maxLagMillis, maxLagMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static ActiveGameStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param gameID the game to read
+     * @return the live game if it is active, otherwise the stored game, or
+     * null if there is no such game
+     * @throws DataAccessException if the game cannot be read
+     */
+    public GameData getGame(int gameID) throws DataAccessException {
+        Active live = active.get(gameID);
+        return live != null ? live.game : gameDAO.getGame(gameID);
+    }
+
+    /**
+     * Records a change to a game other than a move, such as its players. An
+     * active game's row is written by the next flush; any other game's row is
+     * written now. The caller must hold the game's monitor if it is active.
+     *
+     * @param game the changed game
+     * @throws DataAccessException if an inactive game cannot be written
+     */
+    public void updateGame(GameData game) throws DataAccessException {
+        Active live = active.get(game.getGameID());
+        if (live != null && live.game == game) {
+            updates.increment();
+            live.snapshotDue = true;
+            dirty.add(game.getGameID());
+        } else {
+            gameDAO.updateGame(game);
+        }
+    }
+
+    /**
+     * Records a move just made in a game. An active game logs it on the next
+     * flush; any other game logs it now. Either way the game's row is only
+     * rewritten at a snapshot point, see {@link #isSnapshotDue(ChessGame)}.
+     * The caller must hold the game's monitor if it is active.
+     *
+     * @param game the game, after the move
+     * @param move the move
+     * @throws DataAccessException if an inactive game cannot be written
+     */
+    public void recordMove(GameData game, ChessMove move) throws DataAccessException {
+        ChessGame chessGame = game.getGame();
+        var logged = new GameDAO.LoggedMove(game.getGameID(), chessGame.getPly() - 1, Move.encode(move),
+                System.currentTimeMillis());
+        Active live = active.get(game.getGameID());
+        if (live != null && live.game == game) {
+            updates.increment();
+            live.pendingMoves.add(logged);
+            if (isSnapshotDue(chessGame)) {
+                live.snapshotDue = true;
+            }
+            dirty.add(game.getGameID());
+        } else {
+            gameDAO.appendMoves(List.of(logged));
+            if (isSnapshotDue(chessGame)) {
+                gameDAO.updateGame(game);
+            }
+        }
+    }
+
+    /**
+     * A game's row is rewritten every {@value #SNAPSHOT_INTERVAL} plies, so
+     * reading it replays a short tail of the log, and once it ends, so a
+     * finished game needs no replay at all
+     */
+    private static boolean isSnapshotDue(ChessGame game) {
+        return game.getPly() % SNAPSHOT_INTERVAL == 0 || game.isGameOver();
+    }
+
+    /**
+     * @return every stored game, with the players of active games as they are
+     * in memory
+     * @throws DataAccessException if the games cannot be read
+     */
+    public List<GameData> listGames() throws DataAccessException {
+        List<GameData> games = gameDAO.listGames();
+        for (GameData game : games) {
+            Active live = active.get(game.getGameID());
+            if (live != null) {
+                synchronized (live.game) {
+                    game.setWhiteUsername(live.game.getWhiteUsername());
+                    game.setBlackUsername(live.game.getBlackUsername());
+                }
+            }
+        }
+        return games;
+    }
+
+    /**
+     * Keeps a game in memory for a connected client
+     *
+     * @param game   the game as just read by {@link #getGame(int)}
+     * @param client identifies one client connection, such as its WebSocket
+     *               session; compared by identity
+     * @return the live game, which is {@code game} unless another client
+     * already made it active
+     */
+    public synchronized GameData attach(GameData game, Object client) {
+        Active live = active.computeIfAbsent(game.getGameID(), id -> new Active(game));
+        // A game still being written after its last client left stays as it is
+        live.retiring = false;
+        live.clients.add(client);
+        return live.game;
+    }
+
+    /**
+     * Lets go of a game for a client connection that closed or left. When no
+     * clients are left the game is written and dropped from memory.
+     *
+     * @param gameID the game the client was connected to
+     * @param client the client, as given to {@link #attach(GameData, Object)}
+     */
+    public void detach(int gameID, Object client) {
+        Active live;
+        synchronized (this) {
+            live = active.get(gameID);
+            if (live == null || !live.clients.remove(client) || !live.clients.isEmpty()) {
+                return;
+            }
+            live.retiring = true;
+        }
+        synchronized (flushLock) {
+            try {
+                flush(gameID);
+            } catch (DataAccessException | RuntimeException e) {
+                // Still dirty, so the flusher writes and drops it later
+                LOG.log(Level.WARNING, "Could not write game " + gameID + " as its last client left", e);
+                return;
+            }
+            release(live);
+        }
+    }
+
+    /**
+     * Writes a game now if it has unwritten updates
+     *
+     * @param gameID the game to write
+     * @throws DataAccessException if the write fails; the game stays dirty
+     */
+    public void flush(int gameID) throws DataAccessException {
+        synchronized (flushLock) {
+            if (dirty.remove(gameID)) {
+                write(List.of(gameID));
+            }
+        }
+    }
+
+    /**
+     * Writes every game with unwritten updates now
+     *
+     * @throws DataAccessException if the write fails; the games stay dirty
+     */
+    public void flushAll() throws DataAccessException {
+        synchronized (flushLock) {
+            List<Integer> gameIDs = drainDirty();
+            if (!gameIDs.isEmpty()) {
+                write(gameIDs);
+            }
+            active.values().forEach(this::release);
+        }
+    }
+
+    /**
+     * Forgets every active game, without writing, and deletes every stored game
+     *
+     * @throws DataAccessException if the games cannot be deleted
+     */
+    public void clearGames() throws DataAccessException {
+        synchronized (flushLock) {
+            synchronized (this) {
+                dirty.clear();
+                active.clear();
+            }
+            gameDAO.clearGames();
+        }
+    }
+
+    /**
+     * @return the store's current state and counters
+     */
+    public Metrics metrics() {
+        return new Metrics(active.size(), dirty.size(), updates.sum(), moves.sum(), writes.sum(), batches.sum());
+    }
+
+    /**
+     * Writes what is dirty and stops the background flusher. Only for
+     * stores made in tests; the shared store lives as long as the server.
+     */
+    void close() throws DataAccessException {
+        flusher.shutdownNow();
+        flushAll();
+    }
+
+    /**
+     * Drops a retiring game from memory once it has nothing left to write.
+     * Called under the flush lock, so no write is half done; updates are made
+     * under the game's monitor and attaches under the store's, so neither can
+     * slip in between the check and the removal.
+     */
+    private void release(Active live) {
+        synchronized (live.game) {
+            synchronized (this) {
+                if (live.retiring && live.pendingMoves.isEmpty() && !live.snapshotDue) {
+                    active.remove(live.game.getGameID(), live);
+                }
+            }
+        }
+    }
+
+    private void flushDirty() {
+        try {
+            flushAll();
+        } catch (DataAccessException | RuntimeException e) {
+            LOG.log(Level.WARNING, "Could not write active games; will retry", e);
+        }
+    }
+
+    private List<Integer> drainDirty() {
+        List<Integer> gameIDs = new ArrayList<>(dirty.size());
+        for (Integer gameID : dirty) {
+            if (dirty.remove(gameID)) {
+                gameIDs.add(gameID);
+            }
+        }
+        return gameIDs;
+    }
+
+    /**
+     * Takes each game's unwritten moves, and a copy of the game if its row is
+     * due, under the game's monitor. Then logs the moves in one batch and
+     * writes the copies in another. Whatever fails to be written is put back
+     * and the games marked dirty again.
+     */
+    private void write(List<Integer> gameIDs) throws DataAccessException {
+        List<Active> taken = new ArrayList<>(gameIDs.size());
+        List<GameDAO.LoggedMove> movesToLog = new ArrayList<>();
+        List<GameData> copies = new ArrayList<>();
+        for (Integer gameID : gameIDs) {
+            Active live = active.get(gameID);
+            if (live == null) {
+                continue;
+            }
+            synchronized (live.game) {
+                movesToLog.addAll(live.pendingMoves);
+                live.pendingMoves.clear();
+                if (live.snapshotDue) {
+                    live.snapshotDue = false;
+                    copies.add(copy(live.game));
+                }
+            }
+            taken.add(live);
+        }
+
+        try {
+            if (!movesToLog.isEmpty()) {
+                gameDAO.appendMoves(movesToLog);
+            }
+        } catch (DataAccessException | RuntimeException e) {
+            putBack(taken, movesToLog, copies);
+            throw e;
+        }
+        try {
+            if (!copies.isEmpty()) {
+                gameDAO.updateGames(copies);
+            }
+        } catch (DataAccessException | RuntimeException e) {
+            putBack(taken, List.of(), copies);
+            throw e;
+        }
+        moves.add(movesToLog.size());
+        writes.add(copies.size());
+        if (!movesToLog.isEmpty() || !copies.isEmpty()) {
+            batches.increment();
+        }
+    }
+
+    private void putBack(List<Active> taken, List<GameDAO.LoggedMove> unlogged, List<GameData> unwritten) {
+        for (Active live : taken) {
+            int gameID = live.game.getGameID();
+            synchronized (live.game) {
+                // Older than anything logged since, so they go first
+                live.pendingMoves.addAll(0, unlogged.stream().filter(m -> m.gameID() == gameID).toList());
+                if (unwritten.stream().anyMatch(copy -> copy.getGameID() == gameID)) {
+                    live.snapshotDue = true;
+                }
+            }
+            dirty.add(gameID);
+        }
+    }
+
+    private static GameData copy(GameData game) {
+        synchronized (game) {
+            ChessGame chessGame = game.getGame() != null ? new ChessGame(game.getGame()) : null;
+            GameData copy = new GameData(game.getGameID(), game.getGameName(), chessGame);
+            copy.setWhiteUsername(game.getWhiteUsername());
+            copy.setBlackUsername(game.getBlackUsername());
+            copy.setResigned(game.isResigned());
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded, concurrent cache of auth tokens, so the lookup every request
+ * makes does not have to go to the database for a recently seen token.
+ * <p>
+ * Entries expire {@code ttlMillis} after they are loaded. When the cache
+ * grows past {@code maxSize} it drops expired entries, then the oldest,
+ * until it is back under its limit. Only tokens that exist are cached, so
+ * a token created after a failed lookup is found on the next one.
+ * <p>
+ * A lookup that races a delete must not put the deleted token back, so every
+ * invalidation bumps a generation counter and a load whose generation moved
+ * on removes what it stored.
+ */
+public final class AuthCache {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Looks up a token the cache does not hold
+     */
+    @FunctionalInterface
+    public interface Loader {
+        AuthData load(String authToken) throws DataAccessException;
+    }
+
+    /**
+     * A snapshot of the cache's size and counters since it was created
+     *
+     * @param size      tokens currently cached
+     * @param hits      lookups answered from the cache
+     * @param misses    lookups that went to the database
+     * @param evictions tokens dropped because they expired or the cache was full
+     */
+    public record Metrics(int size, long hits, long misses, long evictions) {
+        /**
+         * @return the fraction of lookups answered from the cache
+         */
+        public double hitRate() {
+            return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        }
+    }
+
+    private record Entry(AuthData auth, long expiresAt) {
+    }
+
+    /**
+     * @param maxSize   most tokens kept at once
+     * @param ttlMillis how long a token is trusted after it was loaded
+     */
+    public AuthCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, System::nanoTime);
+    }
+
+    AuthCache(int maxSize, long ttlMillis, LongSupplier clock) {
+        if (maxSize < 1 || ttlMillis < 1) {
+            throw new IllegalArgumentException("Auth cache needs a positive size and time to live");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.clock = clock;
+    }
+
+    /**
+     * @param authToken the token to look up, or null
+     * @param loader    reads the token from the database on a miss
+     * @return the token's auth data, or null if the token is null or does not exist
+     * @throws DataAccessException if the loader fails
+     */
+    public AuthData get(String authToken, Loader loader) throws DataAccessException {
+        // A request without a token is simply unauthorized
+        if (authToken == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        Entry entry = entries.get(authToken);
+        if (entry != null && now - entry.expiresAt < 0) {
+            hits.increment();
+            return entry.auth;
+        }
+        if (entry != null && entries.remove(authToken, entry)) {
+            evictions.increment();
+        }
+        misses.increment();
+
+        long seen = generation.get();
+        AuthData auth = loader.load(authToken);
+        if (auth != null) {
+            store(auth, seen);
+        }
+        return auth;
+    }
+
+    /**
+     * Caches a token that was just created
+     *
+     * @param auth the new token
+     */
+    public void put(AuthData auth) {
+        store(auth, generation.get());
+    }
+
+    /**
+     * Forgets a token. Call after it is deleted from the database.
+     *
+     * @param authToken the deleted token
+     */
+    public void invalidate(String authToken) {
+        generation.incrementAndGet();
+        if (authToken != null) {
+            entries.remove(authToken);
+        }
+    }
+
+    /**
+     * Forgets every token. Call after the table is cleared.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * @return the cache's current size and counters
+     */
+    public Metrics metrics() {
+        return new Metrics(entries.size(), hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private void store(AuthData auth, long seen) {
+        Entry entry = new Entry(auth, clock.getAsLong() + ttlNanos);
+        entries.put(auth.authToken(), entry);
+        // An invalidation may have run while the token was loaded
+        if (generation.get() != seen) {
+            entries.remove(auth.authToken(), entry);
+        }
+        if (entries.size() > maxSize) {
+            shrink();
+        }
+    }
+
+    /**
+     * Drops expired entries, then the ones closest to expiring, until the
+     * cache is a tenth under its limit, so a full cache is not swept on
+     * every store
+     */
+    private synchronized void shrink() {
+        long now = clock.getAsLong();
+        entries.entrySet().removeIf(e -> {
+            boolean expired = now - e.getValue().expiresAt >= 0;
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+        int excess = entries.size() - (maxSize - maxSize / 10);
+        if (excess <= 0) {
+            return;
+        }
+        entries.entrySet().stream()
+                .sorted((a, b) -> Long.compare(a.getValue().expiresAt, b.getValue().expiresAt))
+                .limit(excess)
+                .toList()
+                .forEach(e -> {
+                    if (entries.remove(e.getKey(), e.getValue())) {
+                        evictions.increment();
+                    }
+                });
+    }
+}
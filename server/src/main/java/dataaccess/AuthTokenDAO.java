@@ -10,6 +10,8 @@ import java.sql.SQLException;
 public class AuthTokenDAO {
 
     private static final AuthTokenDAO INSTANCE = new AuthTokenDAO();
+    // Shared by every instance, so a delete through one is seen by all
+    private static final AuthCache CACHE = new AuthCache(10_000, 5 * 60_000);
 
     public AuthTokenDAO() {
     }
@@ -18,6 +20,13 @@ public class AuthTokenDAO {
         return INSTANCE;
     }
 
+    /**
+     * @return the token cache's current size and counters
+     */
+    public static AuthCache.Metrics cacheMetrics() {
+        return CACHE.metrics();
+    }
+
     public void createAuth(AuthData authData) throws DataAccessException {
         String sql = "INSERT INTO auth_tokens (token, username) VALUES (?, ?);";
 
@@ -27,6 +36,7 @@ public class AuthTokenDAO {
             stmt.setString(2, authData.username());
 
             stmt.executeUpdate();
+            CACHE.put(authData);
         } catch (SQLException e) {
             if (e.getErrorCode() == 1062) {
                 throw new DataAccessException("Token already exists: " + authData.authToken());
@@ -37,6 +47,10 @@ public class AuthTokenDAO {
     }
 
     public AuthData getAuth(String authToken) throws DataAccessException {
+        return CACHE.get(authToken, this::loadAuth);
+    }
+
+    private AuthData loadAuth(String authToken) throws DataAccessException {
         String sql = "SELECT * FROM auth_tokens WHERE token = ?;";
 
         try (Connection conn = DatabaseManager.getConnection();
@@ -67,6 +81,9 @@ public class AuthTokenDAO {
             stmt.executeUpdate();
         } catch (SQLException e) {
             throw new DataAccessException("Error deleting auth token: " + authToken + " - " + e.getMessage());
+        } finally {
+            // Even a failed delete may have gone through, so never trust the cached copy again
+            CACHE.invalidate(authToken);
         }
     }
 
@@ -78,6 +95,8 @@ public class AuthTokenDAO {
             stmt.executeUpdate();
         } catch (SQLException e) {
             throw new DataAccessException("Error clearing auth tokens" + e.getMessage());
+        } finally {
+            CACHE.invalidateAll();
         }
     }
 }
@@ -0,0 +1,645 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded pool of database connections, so DAO calls reuse an open
+ * connection instead of paying a full MySQL handshake each time.
+ * <p>
+ * Callers get a proxy whose {@code close()} hands the connection back, so
+ * the usual try-with-resources block is all a DAO needs. At most
+ * {@code maxSize} connections are lent out at once; a caller that finds them
+ * all in use waits up to {@code acquireTimeoutMillis} and then gets a
+ * {@link SQLTransientConnectionException}. A connection that has sat idle
+ * for more than half a second is checked with {@link Connection#isValid}
+ * before it is lent, and one that failed with a connection error is closed
+ * rather than reused. A background task closes connections idle for longer
+ * than {@code idleTimeoutMillis} and keeps at least {@code minSize} open.
+ * <p>
+ * Each connection also keeps its last {@code statementCacheSize} prepared
+ * statements, keyed by SQL text. A DAO that prepares the same SQL again gets
+ * the statement back with its parameters cleared, instead of having it
+ * parsed and planned again; closing it returns it to the cache.
+ * <p>
+ * Every statement a borrower gets, cached or not, and every result set it
+ * opens leads back to the borrowed proxy rather than the physical connection,
+ * so nothing a DAO can reach closes or reconfigures a pooled connection.
+ */
+public final class ConnectionPool implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(ConnectionPool.class.getName());
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final ConnectionFactory factory;
+    private final Settings settings;
+    private final Semaphore permits;
+    // Most recently returned first, so busy periods reuse the same few connections
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final ScheduledExecutorService maintenance;
+    private volatile boolean closed;
+
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Opens a new physical connection for the pool
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * How the pool is sized and when it gives up or evicts
+     *
+     * @param minSize                  connections kept open even when idle
+     * @param maxSize                  most connections lent out at once
+     * @param acquireTimeoutMillis     how long a borrower waits for a free connection
+     * @param idleTimeoutMillis        how long an idle connection above minSize is kept
+     * @param validationTimeoutSeconds how long a validity check may take
+     * @param statementCacheSize       prepared statements kept per connection, 0 for none
+     */
+    public record Settings(int minSize, int maxSize, long acquireTimeoutMillis, long idleTimeoutMillis,
+                           int validationTimeoutSeconds, int statementCacheSize) {
+        public static final Settings DEFAULT = new Settings(2, 10, 5_000, 600_000, 2, 64);
+
+        public Settings {
+            if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+                throw new IllegalArgumentException("Pool needs 0 <= minSize <= maxSize and maxSize >= 1");
+            }
+            if (acquireTimeoutMillis < 0 || idleTimeoutMillis < 1 || validationTimeoutSeconds < 0) {
+                throw new IllegalArgumentException("Pool timeouts cannot be negative");
+            }
+            if (statementCacheSize < 0) {
+                throw new IllegalArgumentException("Statement cache size cannot be negative");
+            }
+        }
+
+        /**
+         * Reads the db.pool.* keys, using the defaults for any that are missing:
+         * db.pool.minSize (2), db.pool.maxSize (10), db.pool.acquireTimeoutMillis
+         * (5000), db.pool.idleTimeoutMillis (600000),
+         * db.pool.validationTimeoutSeconds (2) and db.pool.statementCacheSize (64)
+         *
+         * @param props the loaded db.properties
+         * @return the settings
+         */
+        public static Settings fromProperties(Properties props) {
+            return new Settings(
+                    Integer.parseInt(props.getProperty("db.pool.minSize", String.valueOf(DEFAULT.minSize))),
+                    Integer.parseInt(props.getProperty("db.pool.maxSize", String.valueOf(DEFAULT.maxSize))),
+                    Long.parseLong(props.getProperty("db.pool.acquireTimeoutMillis",
+                            String.valueOf(DEFAULT.acquireTimeoutMillis))),
+                    Long.parseLong(props.getProperty("db.pool.idleTimeoutMillis",
+                            String.valueOf(DEFAULT.idleTimeoutMillis))),
+                    Integer.parseInt(props.getProperty("db.pool.validationTimeoutSeconds",
+                            String.valueOf(DEFAULT.validationTimeoutSeconds))),
+                    Integer.parseInt(props.getProperty("db.pool.statementCacheSize",
+                            String.valueOf(DEFAULT.statementCacheSize))));
+        }
+    }
+
+    /**
+     * A snapshot of the pool's state and counters since it was created
+     *
+     * @param open           physical connections currently open
+     * @param idle           open connections waiting to be lent
+     * @param borrows        connections lent out
+     * @param created        physical connections opened
+     * @param discarded      physical connections closed as broken, invalid or idle
+     * @param timeouts       borrowers that gave up waiting
+     * @param totalWaitNanos time borrowers spent waiting for a free connection
+     * @param maxWaitNanos   longest any borrower waited
+     * @param statementHits   prepares answered from a connection's statement cache
+     * @param statementMisses prepares that had to go to the driver
+     */
+    public record Metrics(int open, int idle, long borrows, long created, long discarded, long timeouts,
+                          long totalWaitNanos, long maxWaitNanos, long statementHits, long statementMisses) {
+        /**
+         * @return connections currently lent out
+         */
+        public int inUse() {
+            return open - idle;
+        }
+
+        /**
+         * @return the mean time a borrower waited, in milliseconds
+         */
+        public double averageWaitMillis() {
+            return borrows + timeouts == 0 ? 0 : totalWaitNanos / 1e6 / (borrows + timeouts);
+        }
+    }
+
+    /**
+     * @param factory  opens the physical connections
+     * @param settings the pool's size and timeouts
+     */
+    public ConnectionPool(ConnectionFactory factory, Settings settings) {
+        this.factory = factory;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize(), true);
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(10, Math.min(settings.idleTimeoutMillis() / 2, 30_000));
+        maintenance.scheduleWithFixedDelay(this::maintain, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Lends out a connection, waiting for one to come free if all are in use
+     *
+     * @return a connection to close when done, which returns it to the pool
+     * @throws SQLTransientConnectionException if none came free in time
+     * @throws SQLException                    if a new connection could not be opened
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(settings.acquireTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        waitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        if (!acquired) {
+            timeouts.increment();
+            throw new SQLTransientConnectionException("Timed out after " + settings.acquireTimeoutMillis()
+                    + " ms waiting for a database connection; all " + settings.maxSize() + " are in use");
+        }
+
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null) {
+                pooled = create();
+            }
+            borrows.increment();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new Lease(pooled));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the pool's current state and counters
+     */
+    public Metrics metrics() {
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        return new Metrics(open.get(), idleCount, borrows.sum(), created.sum(), discarded.sum(), timeouts.sum(),
+                waitNanos.sum(), maxWaitNanos.get(), statementHits.sum(), statementMisses.sum());
+    }
+
+    /**
+     * Closes every idle connection and stops maintenance. Connections still
+     * lent out are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        maintenance.shutdownNow();
+        List<PooledConnection> toClose;
+        synchronized (idle) {
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+        }
+        toClose.forEach(this::discard);
+    }
+
+    private PooledConnection takeIdle() {
+        while (true) {
+            PooledConnection pooled;
+            synchronized (idle) {
+                pooled = idle.pollFirst();
+            }
+            if (pooled == null) {
+                return null;
+            }
+            if (isUsable(pooled)) {
+                return pooled;
+            }
+            discard(pooled);
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) {
+                return false;
+            }
+            return System.nanoTime() - pooled.lastUsed < VALIDATION_BYPASS_NANOS
+                    || pooled.physical.isValid(settings.validationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection create() throws SQLException {
+        open.incrementAndGet();
+        try {
+            PooledConnection pooled = new PooledConnection(factory.open(), settings.statementCacheSize());
+            created.increment();
+            return pooled;
+        } catch (SQLException | RuntimeException e) {
+            open.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        try {
+            if (!pooled.broken && !closed && open.get() <= settings.maxSize() && reset(pooled)) {
+                pooled.lastUsed = System.nanoTime();
+                synchronized (idle) {
+                    idle.addFirst(pooled);
+                }
+            } else {
+                discard(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Undoes anything a borrower left behind that would leak into the next
+     * borrower's work
+     */
+    private boolean reset(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) {
+                return false;
+            }
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            // A statement the borrower never closed cannot be handed out again
+            pooled.statements.values().removeIf(cached -> {
+                if (cached.inUse) {
+                    closeQuietly(cached.physical);
+                }
+                return cached.inUse;
+            });
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        open.decrementAndGet();
+        discarded.increment();
+        // Closing the connection closes its cached statements too
+        pooled.statements.clear();
+        closeQuietly(pooled.physical);
+    }
+
+    private void maintain() {
+        long now = System.nanoTime();
+        long idleLimit = TimeUnit.MILLISECONDS.toNanos(settings.idleTimeoutMillis());
+        List<PooledConnection> expired = new ArrayList<>();
+        synchronized (idle) {
+            // Oldest at the tail
+            Iterator<PooledConnection> oldest = idle.descendingIterator();
+            while (oldest.hasNext() && open.get() - expired.size() > settings.minSize()) {
+                PooledConnection pooled = oldest.next();
+                if (now - pooled.lastUsed < idleLimit) {
+                    break;
+                }
+                oldest.remove();
+                expired.add(pooled);
+            }
+        }
+        expired.forEach(this::discard);
+
+        while (!closed && open.get() < settings.minSize()) {
+            try {
+                PooledConnection pooled = create();
+                pooled.lastUsed = System.nanoTime();
+                synchronized (idle) {
+                    idle.addLast(pooled);
+                }
+            } catch (SQLException | RuntimeException e) {
+                LOG.log(Level.WARNING, "Could not open a database connection for the pool", e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * A physical connection and what the pool knows about it. Only the
+     * current borrower touches the statement cache, so it needs no locking.
+     */
+    private static final class PooledConnection {
+        final Connection physical;
+        final Map<String, CachedStatement> statements;
+        volatile long lastUsed = System.nanoTime();
+        volatile boolean broken;
+
+        PooledConnection(Connection physical, int statementCacheSize) {
+            this.physical = physical;
+            // Access order, so the eldest entry is the least recently used
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                    if (size() <= statementCacheSize) {
+                        return false;
+                    }
+                    eldest.getValue().evict();
+                    return true;
+                }
+            };
+        }
+    }
+
+    /**
+     * A physical prepared statement kept open for reuse
+     */
+    private static final class CachedStatement {
+        final PreparedStatement physical;
+        boolean inUse;
+        boolean evicted;
+
+        CachedStatement(PreparedStatement physical) {
+            this.physical = physical;
+        }
+
+        /**
+         * Closes the statement once nobody is using it
+         */
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly(physical);
+            }
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            LOG.log(Level.FINE, "Error closing pooled resource", e);
+        }
+    }
+
+    /**
+     * Marks a connection broken when an error says the connection itself failed
+     */
+    private static Throwable noteFailure(PooledConnection pooled, InvocationTargetException e) {
+        Throwable cause = e.getCause();
+        // SQL state class 08 means the connection itself failed
+        if (cause instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("08")) {
+            pooled.broken = true;
+        }
+        return cause;
+    }
+
+    /**
+     * Stands in for a physical connection while it is lent out. Each loan gets
+     * its own proxy, so a caller holding on to a returned connection cannot
+     * reach the next borrower's.
+     */
+    private final class Lease implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean returned;
+
+        Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        release(pooled);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || pooled.physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled " + pooled.physical;
+                }
+                default -> {
+                }
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                if (method.getName().equals("prepareStatement") && settings.statementCacheSize() > 0
+                        && (args.length == 1 || args.length == 2 && args[1] instanceof Integer)) {
+                    return prepare((Connection) proxy, method, args);
+                }
+                Object result = method.invoke(pooled.physical, args);
+                if (result instanceof Statement statement) {
+                    return Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                            new Class<?>[]{method.getReturnType()},
+                            new StatementLoan(pooled, (Connection) proxy, statement, null));
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw noteFailure(pooled, e);
+            }
+        }
+
+        /**
+         * Hands out the cached statement for the SQL if it is free, or prepares
+         * and caches a new one. A statement already in use by this borrower,
+         * as when the same query is nested, is prepared again uncached.
+         */
+        private PreparedStatement prepare(Connection lease, Method method, Object[] args)
+                throws ReflectiveOperationException {
+            String key = args.length == 1 ? (String) args[0] : args[1] + ":" + args[0];
+            CachedStatement cached = pooled.statements.get(key);
+            if (cached != null && cached.inUse) {
+                statementMisses.increment();
+                PreparedStatement uncached = (PreparedStatement) method.invoke(pooled.physical, args);
+                return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                        new Class<?>[]{PreparedStatement.class}, new StatementLoan(pooled, lease, uncached, null));
+            }
+            if (cached != null) {
+                statementHits.increment();
+            } else {
+                statementMisses.increment();
+                cached = new CachedStatement((PreparedStatement) method.invoke(pooled.physical, args));
+                pooled.statements.put(key, cached);
+            }
+            cached.inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, new StatementLoan(pooled, lease, cached.physical, cached));
+        }
+    }
+
+    /**
+     * Stands in for a statement while a borrower uses it, answering
+     * {@code getConnection} with the borrowed proxy. Closing a cached
+     * statement clears its parameters and batch, closes its results and hands
+     * it back to the cache; closing any other statement closes it.
+     */
+    private static final class StatementLoan implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final Connection lease;
+        private final Statement physical;
+        private final CachedStatement cached;
+        private boolean returned;
+
+        /**
+         * @param cached the cache entry holding the statement, or null if it is not cached
+         */
+        StatementLoan(PooledConnection pooled, Connection lease, Statement physical, CachedStatement cached) {
+            this.pooled = pooled;
+            this.lease = lease;
+            this.physical = physical;
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        if (cached == null) {
+                            physical.close();
+                        } else {
+                            giveBack();
+                        }
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return (cached == null ? "Pooled " : "Cached ") + physical;
+                }
+                default -> {
+                }
+            }
+            if (returned) {
+                throw new SQLException("Statement has already been closed");
+            }
+            if (method.getName().equals("getConnection")) {
+                return lease;
+            }
+            try {
+                Object result = method.invoke(physical, args);
+                if (result instanceof ResultSet results) {
+                    return viewOf(results, proxy);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw noteFailure(pooled, e);
+            }
+        }
+
+        /**
+         * Wraps a result set so its {@code getStatement} gives the borrowed
+         * statement rather than the physical one
+         */
+        private ResultSet viewOf(ResultSet results, Object statement) {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getStatement" -> {
+                                return statement;
+                            }
+                            case "equals" -> {
+                                return proxy == args[0];
+                            }
+                            case "hashCode" -> {
+                                return System.identityHashCode(proxy);
+                            }
+                            default -> {
+                            }
+                        }
+                        try {
+                            return method.invoke(results, args);
+                        } catch (InvocationTargetException e) {
+                            throw noteFailure(pooled, e);
+                        }
+                    });
+        }
+
+        private void giveBack() {
+            cached.inUse = false;
+            if (cached.evicted) {
+                closeQuietly(cached.physical);
+                return;
+            }
+            try {
+                // Nothing the borrower left behind may reach the next borrower's execute
+                cached.physical.clearParameters();
+                cached.physical.clearBatch();
+                ResultSet results = cached.physical.getResultSet();
+                if (results != null) {
+                    results.close();
+                }
+            } catch (SQLException e) {
+                pooled.statements.values().remove(cached);
+                closeQuietly(cached.physical);
+            }
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package dataaccess;
 
+import chess.ChessGame;
+import chess.GameCodec;
+import serialization.Serialization;
+
 import java.sql.*;
 import java.util.Properties;
-import java.util.logging.Logger;
 
 public class DatabaseManager {
     private static final String DATABASE_NAME;
     private static final String USER;
     private static final String PASSWORD;
     private static final String CONNECTION_URL;
+    private static final ConnectionPool.Settings POOL_SETTINGS;
+    private static volatile ConnectionPool pool;
 
 
     /*
@@ -27,9 +32,14 @@ public class DatabaseManager {
                 PASSWORD = props.getProperty("db.password");
 
 
+                POOL_SETTINGS = ConnectionPool.Settings.fromProperties(props);
                 var host = props.getProperty("db.host");
                 var port = Integer.parseInt(props.getProperty("db.port"));
-                CONNECTION_URL = String.format("jdbc:mysql://%s:%d", host, port);
+                // Prepare on the server so a statement the pool keeps open skips the parse
+                // and plan when reused. The pool is the only statement cache: the driver's
+                // own would hold a second copy of the same prepares per connection.
+                CONNECTION_URL = String.format("jdbc:mysql://%s:%d?useServerPrepStmts=true"
+                        + "&cacheResultSetMetadata=true", host, port);
             }
         } catch (Exception ex) {
             throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
@@ -44,39 +54,86 @@ public class DatabaseManager {
      * Creates the database if it does not already exist.
      */
     public static void createDatabase() throws DataAccessException {
-        try {
-            var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            try (var preparedStatement = conn.prepareStatement(statement)) {
-                preparedStatement.executeUpdate();
-            }
+        var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
+        // Not pooled: pooled connections select the database this creates
+        try (var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+             var preparedStatement = conn.prepareStatement(statement)) {
+            preparedStatement.executeUpdate();
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
-     * The easiest way to do that is with a try-with-resource block.
+     * Borrows a connection to the database from the pool, with the catalog set
+     * based upon the properties specified in db.properties. Connections to the
+     * database should be short-lived, and you must close the connection when you
+     * are done with it, which returns it to the pool. The easiest way to do that
+     * is with a try-with-resource block.
      * <br/>
      * <code>
-     * try (var conn = DbInfo.getConnection(databaseName)) {
+     * try (var conn = DatabaseManager.getConnection()) {
      * // execute SQL statements.
      * }
      * </code>
      */
     static Connection getConnection() throws DataAccessException {
         try {
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+            return pool().borrow();
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * @return the connection pool's current state and counters
+     */
+    public static ConnectionPool.Metrics poolMetrics() {
+        return pool().metrics();
+    }
+
+    /**
+     * Closes the connection pool's idle connections and its maintenance task.
+     * Connections still lent out are closed as they are returned. The next
+     * {@link #getConnection()} opens a new pool, so a server can be stopped
+     * and run again.
+     */
+    public static synchronized void closePool() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    private static Connection openConnection() throws SQLException {
+        var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+        try {
             conn.setCatalog(DATABASE_NAME);
             return conn;
         } catch (SQLException e) {
-            throw new DataAccessException(e.getMessage());
+            conn.close();
+            throw e;
         }
     }
 
+    /**
+     * Creates the pool on first use, after createDatabase has had its chance
+     * to make the database its connections select
+     */
+    private static ConnectionPool pool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseManager.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(DatabaseManager::openConnection, POOL_SETTINGS);
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
     private final String[] createStatements = {
             """
     CREATE TABLE IF NOT EXISTS users (
@@ -95,10 +152,21 @@ public class DatabaseManager {
     CREATE TABLE IF NOT EXISTS games (
         game_id INT AUTO_INCREMENT PRIMARY KEY,
         game_state JSON,
+        game_data BLOB,
+        snapshot_ply INT NOT NULL DEFAULT 0,
         game_name VARCHAR(255) NOT NULL,
         white_username VARCHAR(255),
         black_username VARCHAR(255)
     );
+    """,
+            """
+    CREATE TABLE IF NOT EXISTS game_moves (
+        game_id INT NOT NULL,
+        ply INT NOT NULL,
+        move SMALLINT UNSIGNED NOT NULL,
+        played_at TIMESTAMP(3) NOT NULL,
+        PRIMARY KEY (game_id, ply)
+    );
     """
     };
 
@@ -111,8 +179,54 @@ public class DatabaseManager {
                     preparedStatement.executeUpdate();
                 }
             }
+            migrateGameStates(conn);
         } catch (SQLException ex) {
             throw new DataAccessException(String.format("Unable to configure database: %s", ex.getMessage()));
         }
     }
+
+    /**
+     * Moves games saved as JSON by older servers into the binary game_data
+     * column, adding the columns newer servers use first if the table
+     * predates them. Rows are converted once; GameDAO only writes game_data.
+     * A converted row's snapshot_ply stays 0, which is right since it has no
+     * logged moves.
+     */
+    private static void migrateGameStates(Connection conn) throws SQLException {
+        addColumnIfMissing(conn, "games", "game_data", "BLOB");
+        addColumnIfMissing(conn, "games", "snapshot_ply", "INT NOT NULL DEFAULT 0");
+
+        var gson = Serialization.gson();
+        var select = "SELECT game_id, game_state FROM games WHERE game_data IS NULL AND game_state IS NOT NULL";
+        var update = "UPDATE games SET game_data = ?, game_state = NULL WHERE game_id = ?";
+        try (var query = conn.prepareStatement(select);
+             var rs = query.executeQuery();
+             var preparedStatement = conn.prepareStatement(update)) {
+            while (rs.next()) {
+                ChessGame game = gson.fromJson(rs.getString("game_state"), ChessGame.class);
+                preparedStatement.setBytes(1, GameCodec.encode(game));
+                preparedStatement.setInt(2, rs.getInt("game_id"));
+                preparedStatement.executeUpdate();
+            }
+        }
+    }
+
+    private static void addColumnIfMissing(Connection conn, String table, String column, String definition)
+            throws SQLException {
+        var columnQuery = "SELECT COUNT(*) FROM information_schema.COLUMNS "
+                + "WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ? AND COLUMN_NAME = ?";
+        try (var preparedStatement = conn.prepareStatement(columnQuery)) {
+            preparedStatement.setString(1, DATABASE_NAME);
+            preparedStatement.setString(2, table);
+            preparedStatement.setString(3, column);
+            try (var rs = preparedStatement.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == 0) {
+                    var ddl = "ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition;
+                    try (var alter = conn.prepareStatement(ddl)) {
+                        alter.executeUpdate();
+                    }
+                }
+            }
+        }
+    }
 }
@@ -1,19 +1,38 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.GameCodec;
+import chess.InvalidMoveException;
+import chess.Move;
 import model.GameData;
 import com.google.gson.Gson;
+import serialization.Serialization;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Stores each game as a snapshot row in games plus an append-only log of the
+ * moves made since, in game_moves. A move costs one small insert; the
+ * snapshot is rewritten only now and then, and a game is read back by
+ * replaying the moves logged after its snapshot.
+ */
 public class GameDAO {
-    private Object chessGameState;
-    String gameStateJson = GSON.toJson(chessGameState);
+    private static final Gson GSON = Serialization.gson();
+    private static final String UPDATE_SQL = "UPDATE games SET game_data = ?, game_state = NULL, snapshot_ply = ?, "
+            + "white_username = ?, black_username = ? WHERE game_id = ?";
 
-
-    private static final Gson GSON = new Gson();
+    /**
+     * One row of the move log
+     *
+     * @param gameID   the game the move was made in
+     * @param ply      the game's ply count before the move, see {@link ChessGame#getPly()}
+     * @param move     the packed move, without flags
+     * @param playedAt when the move was made, in epoch milliseconds
+     */
+    public record LoggedMove(int gameID, int ply, int move, long playedAt) {
+    }
 
     public GameData createGame(String gameName, String username, String playerColor, ChessGame game) throws DataAccessException {
         // Validate inputs
@@ -24,16 +43,14 @@ public class GameDAO {
             throw new DataAccessException("Game cannot be null or empty");
         }
 
-        String sql = "INSERT INTO games (game_name, game_state) VALUES (?, ?)";
+        String sql = "INSERT INTO games (game_name, game_data, snapshot_ply) VALUES (?, ?, ?)";
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
-            // Convert the game state to JSON
-            String gameStateJson = new Gson().toJson(game);
-
             // Set parameters for the query
             stmt.setString(1, gameName); // Game name
-            stmt.setString(2, gameStateJson); // Serialized game state
+            stmt.setBytes(2, GameCodec.encode(game)); // Serialized game state
+            stmt.setInt(3, game.getPly());
             // Execute the statement
             stmt.executeUpdate();
 
@@ -60,8 +77,8 @@ public class GameDAO {
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
                     String gameName = rs.getString("game_name");
-                    String gameStateJson = rs.getString("game_state");
-                    ChessGame gameState = gameStateJson != null ? GSON.fromJson(gameStateJson, ChessGame.class) : new ChessGame();
+                    ChessGame gameState = readGameState(rs);
+                    replayMoves(conn, gameID, rs.getInt("snapshot_ply"), gameState);
 
                     GameData gameData = new GameData(gameID, gameName, gameState);
                     gameData.setWhiteUsername(rs.getString("white_username"));
@@ -76,17 +93,14 @@ public class GameDAO {
         return null;
     }
 
+    /**
+     * Writes a game's row, snapshotting its current state
+     */
     public void updateGame(GameData game) throws DataAccessException {
-        String sql = "UPDATE games SET game_state = ?, white_username = ?, black_username = ? WHERE game_id = ?";
         try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            String gameStateJson = GSON.toJson(game.getGame());
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
 
-            stmt.setString(1, gameStateJson);
-            stmt.setString(2, game.getWhiteUsername());
-            stmt.setString(3, game.getBlackUsername());
-            stmt.setInt(4, game.getGameID());
+            setSnapshot(stmt, game);
 
             int rowsUpdated = stmt.executeUpdate();
             if (rowsUpdated == 0) {
@@ -97,11 +111,134 @@ public class GameDAO {
         }
     }
 
-    public void clearGames() throws DataAccessException {
-        String sql = "DELETE FROM games";
+    /**
+     * Writes several games in one batch. Unlike {@link #updateGame(GameData)},
+     * a game whose row is gone is skipped rather than treated as an error.
+     *
+     * @param games the games to write
+     * @throws DataAccessException if the batch fails
+     */
+    public void updateGames(List<GameData> games) throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SQL)) {
+
+            for (GameData game : games) {
+                setSnapshot(stmt, game);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error updating games: " + e.getMessage());
+        }
+    }
+
+    private static void setSnapshot(PreparedStatement stmt, GameData game) throws SQLException {
+        ChessGame chessGame = game.getGame();
+        stmt.setBytes(1, chessGame != null ? GameCodec.encode(chessGame) : null);
+        stmt.setInt(2, chessGame != null ? chessGame.getPly() : 0);
+        stmt.setString(3, game.getWhiteUsername());
+        stmt.setString(4, game.getBlackUsername());
+        stmt.setInt(5, game.getGameID());
+    }
+
+    /**
+     * Appends moves to the log in one batch. Writing a move that is already
+     * logged replaces it, so a batch that failed part way can be retried.
+     *
+     * @param moves the moves, in the order they were made
+     * @throws DataAccessException if the batch fails
+     */
+    public void appendMoves(List<LoggedMove> moves) throws DataAccessException {
+        String sql = "INSERT INTO game_moves (game_id, ply, move, played_at) VALUES (?, ?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE move = VALUES(move), played_at = VALUES(played_at)";
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.executeUpdate();
+
+            for (LoggedMove move : moves) {
+                stmt.setInt(1, move.gameID());
+                stmt.setInt(2, move.ply());
+                stmt.setInt(3, Move.withoutFlags(move.move()));
+                stmt.setTimestamp(4, new Timestamp(move.playedAt()));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error logging moves: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param gameID the game to read the log of
+     * @return every logged move of the game, in the order they were made
+     * @throws DataAccessException if the log cannot be read
+     */
+    public List<LoggedMove> getMoves(int gameID) throws DataAccessException {
+        String sql = "SELECT ply, move, played_at FROM game_moves WHERE game_id = ? ORDER BY ply";
+        List<LoggedMove> moves = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, gameID);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    moves.add(new LoggedMove(gameID, rs.getInt("ply"), rs.getInt("move"),
+                            rs.getTimestamp("played_at").getTime()));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading moves of game " + gameID + ": " + e.getMessage());
+        }
+        return moves;
+    }
+
+    /**
+     * Plays the moves logged since the snapshot onto it. Each move is checked,
+     * so a log that does not fit the snapshot is reported rather than
+     * producing an impossible position.
+     */
+    private static void replayMoves(Connection conn, int gameID, int snapshotPly, ChessGame game)
+            throws SQLException, DataAccessException {
+        String sql = "SELECT ply, move FROM game_moves WHERE game_id = ? AND ply >= ? ORDER BY ply";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, gameID);
+            stmt.setInt(2, snapshotPly);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int ply = rs.getInt("ply");
+                    if (ply != game.getPly()) {
+                        throw new DataAccessException("Move log of game " + gameID + " skips to ply " + ply
+                                + " from " + game.getPly());
+                    }
+                    try {
+                        game.makeMove(Move.toChessMove(rs.getInt("move")));
+                    } catch (InvalidMoveException e) {
+                        throw new DataAccessException("Move log of game " + gameID + " has an illegal move at ply "
+                                + ply + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the stored game, preferring the binary column and falling back to
+     * JSON for any row written before the migration
+     */
+    private static ChessGame readGameState(ResultSet rs) throws SQLException {
+        byte[] gameData = rs.getBytes("game_data");
+        if (gameData != null) {
+            return GameCodec.decode(gameData);
+        }
+        String gameStateJson = rs.getString("game_state");
+        return gameStateJson != null ? GSON.fromJson(gameStateJson, ChessGame.class) : new ChessGame();
+    }
+
+    public void clearGames() throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement moves = conn.prepareStatement("DELETE FROM game_moves");
+             PreparedStatement games = conn.prepareStatement("DELETE FROM games")) {
+            moves.executeUpdate();
+            games.executeUpdate();
         } catch (SQLException e) {
             throw new DataAccessException("Error clearing games: " + e.getMessage());
         }
@@ -11,13 +11,14 @@ import service.GameService;
 import service.UserService;
 import spark.Spark;
 import com.google.gson.Gson;
+import serialization.Serialization;
 
 import java.sql.SQLException;
 import java.util.List;
 
 public class Server {
 
-    private static final Gson GSON = new Gson();
+    private static final Gson GSON = Serialization.gson();
     private UserDAO userDAO;
     private GameDAO gameDAO;
     private AuthTokenDAO authTokenDAO;
@@ -26,6 +27,7 @@ public class Server {
     private ClearService clearService;
 
     public int run(int desiredPort) {
+        Serialization.warm();
         Spark.port(desiredPort);
         Spark.staticFiles.location("web");
 
@@ -240,6 +242,14 @@ public class Server {
     public void stop() {
         Spark.stop();
         Spark.awaitStop();
+        try {
+            // Moves made since the last background flush would otherwise be lost
+            ActiveGameStore.getInstance().flushAll();
+        } catch (DataAccessException e) {
+            System.err.println("Unable to save active games: " + e.getMessage());
+        }
+        // After the flush, which needs a connection; a later run() opens a new pool
+        DatabaseManager.closePool();
     }
 
     private record ErrorResponse(String message) {
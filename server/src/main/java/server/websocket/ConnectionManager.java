@@ -1,6 +1,7 @@
 package server.websocket;
 
 import com.google.gson.Gson;
+import serialization.Serialization;
 import org.eclipse.jetty.websocket.api.Session;
 import websocket.messages.ServerMessage;
 
@@ -11,7 +12,7 @@ public class ConnectionManager {
     private final ConcurrentHashMap<String, Connection> connections = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<Integer, ConcurrentHashMap<String, Connection>> gameConnections = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<Session, String> sessionToAuthToken = new ConcurrentHashMap<>();
-    private final Gson gson = new Gson();
+    private final Gson gson = Serialization.gson();
 
     /**
      * Adds a new connection for a player in a specific game.
@@ -2,8 +2,9 @@ package server.websocket;
 
 import chess.*;
 import com.google.gson.Gson;
+import serialization.Serialization;
 import dataaccess.DataAccessException;
-import dataaccess.GameDAO;
+import dataaccess.ActiveGameStore;
 import model.AuthData;
 import model.GameData;
 import dataaccess.AuthTokenDAO;
@@ -19,14 +20,17 @@ import websocket.messages.Notification;
 import websocket.messages.ServerMessage;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 @WebSocket
 public class WebSocketHandler {
 
     private final ConnectionManager connections = new ConnectionManager();
-    private final GameDAO gameDAO = new GameDAO();
+    private final ActiveGameStore activeGames = ActiveGameStore.getInstance();
+    // The game each session is attached to in the store, so every session detaches exactly once
+    private final ConcurrentHashMap<Session, Integer> attachedGames = new ConcurrentHashMap<>();
     private final AuthTokenDAO authDAO = new AuthTokenDAO();// Ensure this is properly initialized
-    private final Gson gson = new Gson();
+    private final Gson gson = Serialization.gson();
 
     @OnWebSocketConnect
     public void onConnect(Session session) {
@@ -40,7 +44,7 @@ public class WebSocketHandler {
         switch (command.getCommandType()) {
             case CONNECT -> connectPlayer(command.getAuthToken(), command.getGameID(), session);
             case MAKE_MOVE ->
-                    handleMove(command.getAuthToken(), command.getGameID(), gson.fromJson(message, MakeMove.class).getChessMove(), session);
+                    handleMove(command.getAuthToken(), command.getGameID(), ((MakeMove) command).getChessMove(), session);
             case RESIGN -> handleResign(command.getAuthToken(), command.getGameID(), session);
             case LEAVE -> handleLeave(command.getAuthToken(), command.getGameID(), session);
             default -> System.out.println("Unhandled command type: " + command.getCommandType());
@@ -50,6 +54,7 @@ public class WebSocketHandler {
 
     @OnWebSocketClose
     public void onClose(Session session, int statusCode, String reason) {
+        detachSession(session);
         String authToken = connections.getAuthTokenBySession(session);
         if (authToken != null) {
             // Retrieve the game ID associated with the auth token
@@ -67,7 +72,7 @@ public class WebSocketHandler {
     private void connectPlayer(String authToken, Integer gameID, Session session) {
         try {
             // Retrieve the game data for the given game ID
-            GameData gameData = gameDAO.getGame(gameID);
+            GameData gameData = activeGames.getGame(gameID);
             AuthData authData = authDAO.getAuth(authToken);
 
             // Handle invalid game ID
@@ -88,30 +93,39 @@ public class WebSocketHandler {
 
             // Add connection with game context
             connections.add(authToken, session, gameID);
+            // Keep the game in memory while this session is connected
+            gameData = activeGames.attach(gameData, session);
+            Integer previousGameID = attachedGames.put(session, gameID);
+            if (previousGameID != null && !previousGameID.equals(gameID)) {
+                activeGames.detach(previousGameID, session);
+            }
 
-            // Determine the player's color and update the GameData
-            String playerColor = authData.username().equals(gameData.getWhiteUsername()) ? "white"
-                    : authData.username().equals(gameData.getBlackUsername()) ? "black" : null;
-
-            if (playerColor == null) {
-                if (gameData.getWhiteUsername() == null) {
-                    gameData.setWhiteUsername(authData.username());
-                    playerColor = "white";
-                } else if (gameData.getBlackUsername() == null) {
-                    gameData.setBlackUsername(authData.username());
-                    playerColor = "black";
-                } else {
-                    // If both slots are taken, treat as an observer
-                    playerColor = "observer";
+            String playerColor;
+            synchronized (gameData) {
+                // Determine the player's color and update the GameData
+                playerColor = authData.username().equals(gameData.getWhiteUsername()) ? "white"
+                        : authData.username().equals(gameData.getBlackUsername()) ? "black" : null;
+
+                if (playerColor == null) {
+                    if (gameData.getWhiteUsername() == null) {
+                        gameData.setWhiteUsername(authData.username());
+                        playerColor = "white";
+                    } else if (gameData.getBlackUsername() == null) {
+                        gameData.setBlackUsername(authData.username());
+                        playerColor = "black";
+                    } else {
+                        // If both slots are taken, treat as an observer
+                        playerColor = "observer";
+                    }
                 }
-            }
 
-            // Persist the updated game data to the database
-            gameDAO.updateGame(gameData);
+                // Record the updated players; the game is written to the database in the background
+                activeGames.updateGame(gameData);
 
-            // Notify the player of the game load
-            LoadGameMessage loadGameMessage = new LoadGameMessage(gameData);
-            connections.sendToRoot(session, loadGameMessage);
+                // Notify the player of the game load
+                LoadGameMessage loadGameMessage = new LoadGameMessage(gameData);
+                connections.sendToRoot(session, loadGameMessage);
+            }
 
             // Notify other players in the game
             String notificationMessage = authData.username() + " joined as " + playerColor;
@@ -149,7 +163,7 @@ public class WebSocketHandler {
             }
 
             // Persist the updated game state in the database
-            gameDAO.updateGame(gameData);
+            activeGames.updateGame(gameData);
 
             // Notify other clients in the game
             String leaveNotification = isWhitePlayer || isBlackPlayer
@@ -163,6 +177,17 @@ public class WebSocketHandler {
         })) {
             return; // Validation failed, exit
         }
+        detachSession(session);
+    }
+
+    /**
+     * Lets the store drop the session's game once no session is attached to it
+     */
+    private void detachSession(Session session) {
+        Integer gameID = attachedGames.remove(session);
+        if (gameID != null) {
+            activeGames.detach(gameID, session);
+        }
     }
 
 
@@ -200,8 +225,8 @@ public class WebSocketHandler {
                 return;
             }
 
-            // Update the game in the database
-            gameDAO.updateGame(gameData);
+            // Record the move; it is logged to the database in the background
+            activeGames.recordMove(gameData, move);
 
             // Broadcast updated game state to all clients
             LoadGameMessage loadGameMessage = new LoadGameMessage(gameData);
@@ -214,6 +239,25 @@ public class WebSocketHandler {
             }
             Notification notification = new Notification(moveNotification);
             connections.broadcastToGame(gameID, authToken, notification);
+
+            // Announce a draw detected by the move (repetition, fifty-move rule, insufficient material)
+            if (game.getDrawReason() != null) {
+                Notification drawNotification = new Notification("The game is drawn: " + game.getDrawReason());
+                connections.broadcastToGame(gameID, null, drawNotification);
+            }
+
+            // Announce check, checkmate or stalemate for the player now on move
+            String playerToMove = game.getTeamTurn() == ChessGame.TeamColor.WHITE
+                    ? gameData.getWhiteUsername() : gameData.getBlackUsername();
+            String statusMessage = switch (game.getStatus()) {
+                case CHECK -> playerToMove + " is in check";
+                case CHECKMATE -> playerToMove + " is in checkmate";
+                case STALEMATE -> playerToMove + " is in stalemate. The game is drawn";
+                case NORMAL -> null;
+            };
+            if (statusMessage != null) {
+                connections.broadcastToGame(gameID, null, new Notification(statusMessage));
+            }
         })) {
             return; // Validation failed, exit
         }
@@ -227,13 +271,19 @@ public class WebSocketHandler {
             return false;
         }
 
-        GameData gameData = gameDAO.getGame(gameID);
+        GameData gameData = activeGames.getGame(gameID);
         if (gameData == null) {
             connections.sendToRoot(session, new ErrorMessage("Invalid game ID."));
             return false;
         }
 
-        consumer.accept(authData, gameData);
+        synchronized (gameData) {
+            consumer.accept(authData, gameData);
+        }
+        // Write a finished game now rather than on the next background flush
+        if (gameData.getGame() != null && gameData.getGame().isGameOver()) {
+            activeGames.flush(gameID);
+        }
         return true;
     }
 
@@ -254,40 +304,43 @@ public class WebSocketHandler {
             }
 
             // Retrieve game data
-            GameData gameData = gameDAO.getGame(gameID);
+            GameData gameData = activeGames.getGame(gameID);
             if (gameData == null) {
                 System.out.println("Invalid game ID: " + gameID);
                 connections.sendToRoot(session, new ErrorMessage("Invalid game ID."));
                 return;
             }
 
-            // Ensure the game is not already over
-            if (gameData.getGame().isGameOver()) {
-                System.out.println("Attempted to resign after the game is already over.");
-                connections.sendToRoot(session, new ErrorMessage("The game is already over. You cannot resign."));
-                return;
-            }
-
-            // Ensure the player is part of the game
             String username = authData.username();
-            if (!username.equals(gameData.getWhiteUsername()) && !username.equals(gameData.getBlackUsername())) {
-                System.out.println("Player not part of the game: " + username);
-                connections.sendToRoot(session, new ErrorMessage("Player not part of the game."));
-                return;
-            }
+            synchronized (gameData) {
+                // Ensure the game is not already over
+                if (gameData.getGame().isGameOver()) {
+                    System.out.println("Attempted to resign after the game is already over.");
+                    connections.sendToRoot(session, new ErrorMessage("The game is already over. You cannot resign."));
+                    return;
+                }
 
-            // Prevent double resignation
-            if (gameData.isResigned()) {
-                System.out.println("Double resignation detected for game ID " + gameID);
-                connections.sendToRoot(session, new ErrorMessage("Resignation already occurred. The game is over."));
-                return;
-            }
+                // Ensure the player is part of the game
+                if (!username.equals(gameData.getWhiteUsername()) && !username.equals(gameData.getBlackUsername())) {
+                    System.out.println("Player not part of the game: " + username);
+                    connections.sendToRoot(session, new ErrorMessage("Player not part of the game."));
+                    return;
+                }
 
-            // Mark the game as over
-            ChessGame game = gameData.getGame();
-            gameData.setResigned(true); // Mark the game as resigned
-            game.setGameOver(true);    // Mark the game as over
-            gameDAO.updateGame(gameData);
+                // Prevent double resignation
+                if (gameData.isResigned()) {
+                    System.out.println("Double resignation detected for game ID " + gameID);
+                    connections.sendToRoot(session, new ErrorMessage("Resignation already occurred. The game is over."));
+                    return;
+                }
+
+                // Mark the game as over
+                ChessGame game = gameData.getGame();
+                gameData.setResigned(true); // Mark the game as resigned
+                game.setGameOver(true);    // Mark the game as over
+                activeGames.updateGame(gameData);
+            }
+            activeGames.flush(gameID);
 
             // Notify all players and observers, including the resigning player
             String resignationMessage = username + " has resigned. The game is over.";
@@ -2,18 +2,18 @@ package service;
 
 import dataaccess.DataAccessException;
 import dataaccess.UserDAO;
-import dataaccess.GameDAO;
+import dataaccess.ActiveGameStore;
 import dataaccess.AuthTokenDAO;
 
 public class ClearService {
 
     private UserDAO userDAO = new UserDAO();
-    private GameDAO gameDAO = new GameDAO();
+    private ActiveGameStore activeGames = ActiveGameStore.getInstance();
     private AuthTokenDAO authTokenDAO = AuthTokenDAO.getInstance();
 
     public void clearDatabase() throws DataAccessException {
         userDAO.clearUsers();
-        gameDAO.clearGames();
+        activeGames.clearGames();
         authTokenDAO.clearAuthTokens();
     }
 }
@@ -1,6 +1,7 @@
 package service;
 
 import chess.ChessGame;
+import dataaccess.ActiveGameStore;
 import dataaccess.AuthTokenDAO;
 import dataaccess.DataAccessException;
 import dataaccess.GameDAO;
@@ -12,6 +13,8 @@ import java.util.List;
 public class GameService {
     private final GameDAO gameDAO;
     private final AuthTokenDAO authTokenDAO;
+    // Games with WebSocket clients live here, so joins must see and update them too
+    private final ActiveGameStore activeGames = ActiveGameStore.getInstance();
 
     public GameService(GameDAO gameDAO, AuthTokenDAO authTokenDAO) {
         this.gameDAO = gameDAO;
@@ -35,8 +38,8 @@ public class GameService {
             throw new DataAccessException("Invalid auth token");
         }
 
-        // Retrieve game from DAO
-        GameData game = gameDAO.getGame(gameID);
+        // Retrieve the game, the live one if a client is connected
+        GameData game = activeGames.getGame(gameID);
         if (game == null) {
             throw new DataAccessException("Game with ID " + gameID + " not found");
         }
@@ -46,26 +49,28 @@ public class GameService {
             throw new DataAccessException("Player color must be 'WHITE' or 'BLACK'");
         }
 
-        // Assign player to the game
-        if (playerColor.equalsIgnoreCase("WHITE")) {
-            if (game.getWhiteUsername() != null) {
-                throw new DataAccessException("White player slot is already taken");
+        synchronized (game) {
+            // Assign player to the game
+            if (playerColor.equalsIgnoreCase("WHITE")) {
+                if (game.getWhiteUsername() != null) {
+                    throw new DataAccessException("White player slot is already taken");
+                }
+                game.setWhiteUsername(authData.username());
+            } else if (playerColor.equalsIgnoreCase("BLACK")) {
+                if (game.getBlackUsername() != null) {
+                    throw new DataAccessException("Black player slot is already taken");
+                }
+                game.setBlackUsername(authData.username());
             }
-            game.setWhiteUsername(authData.username());
-        } else if (playerColor.equalsIgnoreCase("BLACK")) {
-            if (game.getBlackUsername() != null) {
-                throw new DataAccessException("Black player slot is already taken");
-            }
-            game.setBlackUsername(authData.username());
-        }
 
-        // Update the game in DAO
-        gameDAO.updateGame(game);
+            // Update the game
+            activeGames.updateGame(game);
+        }
         return game;
     }
 
 
     public List<GameData> listGames() throws DataAccessException {
-        return gameDAO.listGames();
+        return activeGames.listGames();
     }
 }
@@ -0,0 +1,222 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.Move;
+import model.GameData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActiveGameStoreTest {
+
+    /**
+     * Keeps snapshot rows and the move log in maps and counts writes, so the
+     * store can be tested without a database
+     */
+    private static final class FakeGameDAO extends GameDAO {
+        final Map<Integer, String> rows = new HashMap<>();
+        final Map<Integer, List<LoggedMove>> log = new HashMap<>();
+        final List<Integer> snapshotBatches = new ArrayList<>();
+        final List<Integer> moveBatches = new ArrayList<>();
+        int reads;
+        int singleWrites;
+        boolean failing;
+
+        @Override
+        public GameData getGame(int gameID) {
+            reads++;
+            String fen = rows.get(gameID);
+            if (fen == null) {
+                return null;
+            }
+            ChessGame game = ChessGame.fromFen(fen);
+            for (LoggedMove move : log.getOrDefault(gameID, List.of())) {
+                if (move.ply() >= game.getPly()) {
+                    try {
+                        game.makeMove(Move.toChessMove(move.move()));
+                    } catch (InvalidMoveException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            }
+            return new GameData(gameID, "game", game);
+        }
+
+        @Override
+        public void updateGame(GameData game) {
+            singleWrites++;
+            rows.put(game.getGameID(), game.getGame().toFen());
+        }
+
+        @Override
+        public void updateGames(List<GameData> games) throws DataAccessException {
+            if (failing) {
+                throw new DataAccessException("Database is down");
+            }
+            snapshotBatches.add(games.size());
+            games.forEach(game -> rows.put(game.getGameID(), game.getGame().toFen()));
+        }
+
+        @Override
+        public void appendMoves(List<LoggedMove> moves) throws DataAccessException {
+            if (failing) {
+                throw new DataAccessException("Database is down");
+            }
+            moveBatches.add(moves.size());
+            moves.forEach(move -> log.computeIfAbsent(move.gameID(), id -> new ArrayList<>()).add(move));
+        }
+    }
+
+    private final FakeGameDAO dao = new FakeGameDAO();
+    private final ActiveGameStore store = new ActiveGameStore(dao, 60_000);
+
+    @AfterEach
+    void tearDown() throws DataAccessException {
+        store.close();
+    }
+
+    private void move(GameData game, String from, String to) throws Exception {
+        ChessPosition start = new ChessPosition(from.charAt(1) - '0', from.charAt(0) - 'a' + 1);
+        ChessPosition end = new ChessPosition(to.charAt(1) - '0', to.charAt(0) - 'a' + 1);
+        ChessMove move = new ChessMove(start, end, null);
+        game.getGame().makeMove(move);
+        store.recordMove(game, move);
+    }
+
+    @Test
+    void testMovesOnActiveGameAreCoalesced() throws Exception {
+        dao.rows.put(1, new ChessGame().toFen());
+        GameData game = store.attach(store.getGame(1), "alice");
+        assertSame(game, store.attach(store.getGame(1), "bob"), "Every client shares the live game");
+        assertEquals(1, dao.reads);
+
+        move(game, "e2", "e4");
+        move(game, "e7", "e5");
+        assertTrue(dao.log.isEmpty(), "Moves wait for a flush");
+
+        store.flushAll();
+        assertEquals(List.of(2), dao.moveBatches, "Two moves should be logged in one batch");
+        assertTrue(dao.snapshotBatches.isEmpty(), "A move alone does not rewrite the row");
+        assertEquals(new ChessGame().toFen(), dao.rows.get(1));
+        store.flushAll();
+        assertEquals(1, dao.moveBatches.size(), "Nothing is written when nothing changed");
+
+        game.setWhiteUsername("alice");
+        store.updateGame(game);
+        store.flushAll();
+        assertEquals(List.of(1), dao.snapshotBatches, "A change of players rewrites the row");
+        assertEquals(game.getGame().toFen(), dao.rows.get(1));
+    }
+
+    @Test
+    void testSnapshotsEveryInterval() throws Exception {
+        // Fullmove 16 with white to move is ply 30, two short of the interval
+        assertEquals(32, ActiveGameStore.SNAPSHOT_INTERVAL);
+        dao.rows.put(1, "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 16");
+        GameData game = store.attach(store.getGame(1), "alice");
+        move(game, "e2", "e4");
+        store.flushAll();
+        assertTrue(dao.snapshotBatches.isEmpty());
+
+        move(game, "e7", "e5");
+        store.flushAll();
+        assertEquals(List.of(1), dao.snapshotBatches, "Reaching the interval rewrites the row");
+        assertEquals(game.getGame().toFen(), dao.rows.get(1));
+    }
+
+    @Test
+    void testLastClientLeavingWritesAndDrops() throws Exception {
+        dao.rows.put(1, new ChessGame().toFen());
+        GameData game = store.attach(store.getGame(1), "alice");
+        store.attach(game, "bob");
+        move(game, "e2", "e4");
+        move(game, "c7", "c5");
+
+        store.detach(1, "alice");
+        assertEquals(1, store.metrics().active());
+        store.detach(1, "bob");
+        assertEquals(0, store.metrics().active());
+
+        GameData reread = store.getGame(1);
+        assertNotSame(game, reread, "An inactive game is read from the database");
+        assertEquals(game.getGame().toFen(), reread.getGame().toFen(), "The snapshot plus the log is the game");
+    }
+
+    @Test
+    void testEachConnectionDetachesSeparately() throws Exception {
+        dao.rows.put(1, new ChessGame().toFen());
+        // Two sockets opened with the same auth token
+        Object firstTab = new Object();
+        Object secondTab = new Object();
+        GameData game = store.attach(store.getGame(1), firstTab);
+        store.attach(store.getGame(1), secondTab);
+
+        store.detach(1, firstTab);
+        assertSame(game, store.getGame(1), "The second connection still holds the game");
+        store.detach(1, firstTab);
+        assertSame(game, store.getGame(1), "A repeated detach changes nothing");
+        store.detach(1, secondTab);
+        assertEquals(0, store.metrics().active());
+    }
+
+    @Test
+    void testFailedDetachIsRetried() throws Exception {
+        dao.rows.put(1, new ChessGame().toFen());
+        GameData game = store.attach(store.getGame(1), "alice");
+        move(game, "e2", "e4");
+
+        dao.failing = true;
+        store.detach(1, "alice");
+        assertSame(game, store.getGame(1), "Unwritten moves stay in memory");
+        assertThrows(DataAccessException.class, store::flushAll);
+
+        dao.failing = false;
+        store.flushAll();
+        assertEquals(0, store.metrics().active(), "Once written the game is dropped");
+        assertEquals(game.getGame().toFen(), store.getGame(1).getGame().toFen());
+    }
+
+    @Test
+    void testInactiveGamesWriteThrough() throws Exception {
+        dao.rows.put(1, new ChessGame().toFen());
+        GameData game = store.getGame(1);
+        move(game, "d2", "d4");
+        assertEquals(1, dao.log.get(1).size());
+        assertEquals(0, dao.singleWrites, "A move alone does not rewrite the row");
+        assertEquals(game.getGame().toFen(), store.getGame(1).getGame().toFen());
+
+        dao.rows.put(2, "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b KQkq - 0 16");
+        GameData atInterval = store.getGame(2);
+        move(atInterval, "e7", "e5");
+        assertEquals(1, dao.singleWrites, "Reaching the interval rewrites the row");
+        assertEquals(atInterval.getGame().toFen(), dao.rows.get(2));
+    }
+
+    @Test
+    void testBackgroundFlush() throws Exception {
+        ActiveGameStore fast = new ActiveGameStore(dao, 20);
+        try {
+            dao.rows.put(1, new ChessGame().toFen());
+            GameData game = fast.attach(fast.getGame(1), "alice");
+            ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+            synchronized (game) {
+                game.getGame().makeMove(move);
+                fast.recordMove(game, move);
+            }
+            Thread.sleep(300);
+            assertEquals(1, dao.log.get(1).size(), "The flusher should write within its lag");
+            assertEquals(0, dao.log.get(1).get(0).ply());
+        } finally {
+            fast.close();
+        }
+    }
+}
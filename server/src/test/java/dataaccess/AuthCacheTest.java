@@ -0,0 +1,93 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthCacheTest {
+
+    private final Map<String, AuthData> table = new HashMap<>();
+    private final long[] now = {0};
+    private int loads;
+
+    private AuthData load(String token) {
+        loads++;
+        return table.get(token);
+    }
+
+    private AuthCache cache(int maxSize) {
+        return new AuthCache(maxSize, 1_000, () -> now[0]);
+    }
+
+    @Test
+    void testHitsUntilExpired() throws DataAccessException {
+        AuthCache cache = cache(10);
+        table.put("token", new AuthData("token", "user"));
+        assertEquals("user", cache.get("token", this::load).username());
+        assertEquals("user", cache.get("token", this::load).username());
+        assertEquals(1, loads);
+
+        now[0] += TimeUnit.SECONDS.toNanos(2);
+        cache.get("token", this::load);
+        assertEquals(2, loads, "An expired token should be read again");
+        assertEquals(1, cache.metrics().hits());
+        assertEquals(2, cache.metrics().misses());
+    }
+
+    @Test
+    void testMissingTokensAreNotCached() throws DataAccessException {
+        AuthCache cache = cache(10);
+        assertNull(cache.get("token", this::load));
+        table.put("token", new AuthData("token", "user"));
+        assertNotNull(cache.get("token", this::load));
+    }
+
+    @Test
+    void testNullTokenIsUnknown() throws DataAccessException {
+        AuthCache cache = cache(10);
+        assertNull(cache.get(null, this::load));
+        assertEquals(0, loads);
+        cache.invalidate(null);
+    }
+
+    @Test
+    void testInvalidate() throws DataAccessException {
+        AuthCache cache = cache(10);
+        cache.put(new AuthData("a", "user"));
+        cache.put(new AuthData("b", "user"));
+        cache.invalidate("a");
+        assertNull(cache.get("a", this::load));
+        assertNotNull(cache.get("b", this::load));
+        cache.invalidateAll();
+        assertNull(cache.get("b", this::load));
+        assertEquals(0, cache.metrics().size());
+    }
+
+    @Test
+    void testLoadRacingDeleteIsDropped() throws DataAccessException {
+        AuthCache cache = cache(10);
+        table.put("token", new AuthData("token", "user"));
+        assertNotNull(cache.get("token", token -> {
+            AuthData auth = table.remove(token);
+            cache.invalidate(token);
+            return auth;
+        }));
+        assertNull(cache.get("token", this::load), "A token deleted during its load must not stay cached");
+    }
+
+    @Test
+    void testBoundedSize() {
+        AuthCache cache = cache(10);
+        for (int i = 0; i < 50; i++) {
+            now[0]++;
+            cache.put(new AuthData("token" + i, "user"));
+        }
+        assertTrue(cache.metrics().size() <= 10);
+        assertTrue(cache.metrics().evictions() >= 40);
+    }
+}
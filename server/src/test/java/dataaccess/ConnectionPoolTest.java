@@ -0,0 +1,210 @@
+package dataaccess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+
+    private final List<boolean[]> opened = new ArrayList<>();
+    private final List<boolean[]> prepared = new ArrayList<>();
+    private ConnectionPool pool;
+
+    /**
+     * A connection that only tracks whether it is closed, so the pool can be
+     * tested without a database
+     */
+    private Connection fakeConnection() {
+        boolean[] closed = {false};
+        opened.add(closed);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        closed[0] = true;
+                        yield null;
+                    }
+                    case "isClosed" -> closed[0];
+                    case "isValid", "getAutoCommit" -> true;
+                    case "prepareStatement" -> fakeStatement();
+                    default -> null;
+                });
+    }
+
+    private PreparedStatement fakeStatement() {
+        boolean[] closed = {false};
+        int[] batched = {0};
+        prepared.add(closed);
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        closed[0] = true;
+                        yield null;
+                    }
+                    case "isClosed" -> closed[0];
+                    case "addBatch" -> {
+                        batched[0]++;
+                        yield null;
+                    }
+                    case "clearBatch" -> {
+                        batched[0] = 0;
+                        yield null;
+                    }
+                    case "executeBatch" -> {
+                        int[] counts = new int[batched[0]];
+                        batched[0] = 0;
+                        yield counts;
+                    }
+                    case "executeQuery" -> fakeResults((PreparedStatement) proxy);
+                    default -> null;
+                });
+    }
+
+    private static ResultSet fakeResults(PreparedStatement statement) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getStatement" -> statement;
+                    default -> null;
+                });
+    }
+
+    private ConnectionPool pool(int minSize, int maxSize, long acquireTimeoutMillis, long idleTimeoutMillis) {
+        pool = new ConnectionPool(this::fakeConnection,
+                new ConnectionPool.Settings(minSize, maxSize, acquireTimeoutMillis, idleTimeoutMillis, 1, 2));
+        return pool;
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void testReusesReturnedConnections() throws SQLException {
+        ConnectionPool pool = pool(0, 2, 100, 60_000);
+        for (int i = 0; i < 5; i++) {
+            try (Connection conn = pool.borrow()) {
+                assertFalse(conn.isClosed());
+            }
+        }
+        assertEquals(1, opened.size(), "One physical connection should serve every borrow");
+        assertEquals(5, pool.metrics().borrows());
+        assertEquals(1, pool.metrics().idle());
+    }
+
+    @Test
+    void testTimesOutWhenExhausted() throws SQLException {
+        ConnectionPool pool = pool(0, 1, 50, 60_000);
+        try (Connection ignored = pool.borrow()) {
+            assertThrows(SQLTransientConnectionException.class, pool::borrow);
+        }
+        assertEquals(1, pool.metrics().timeouts());
+        assertTrue(pool.metrics().maxWaitNanos() >= 50_000_000L);
+        pool.borrow().close();
+    }
+
+    @Test
+    void testReturnedHandleIsUnusable() throws SQLException {
+        ConnectionPool pool = pool(0, 1, 100, 60_000);
+        Connection conn = pool.borrow();
+        conn.close();
+        conn.close();
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, () -> conn.prepareStatement("SELECT 1"));
+        assertEquals(1, pool.metrics().idle(), "Closing twice should return the connection once");
+    }
+
+    @Test
+    void testDiscardsClosedConnections() throws SQLException {
+        ConnectionPool pool = pool(0, 1, 100, 60_000);
+        pool.borrow().close();
+        opened.get(0)[0] = true;
+        try (Connection conn = pool.borrow()) {
+            assertFalse(conn.isClosed());
+        }
+        assertEquals(2, opened.size());
+        assertEquals(1, pool.metrics().discarded());
+    }
+
+    @Test
+    void testEvictsIdleAboveMinimum() throws Exception {
+        ConnectionPool pool = pool(1, 3, 100, 50);
+        Connection first = pool.borrow();
+        Connection second = pool.borrow();
+        Connection third = pool.borrow();
+        first.close();
+        second.close();
+        third.close();
+        Thread.sleep(300);
+        assertEquals(1, pool.metrics().open(), "Idle connections above minSize should be closed");
+    }
+
+    @Test
+    void testCachesPreparedStatements() throws SQLException {
+        ConnectionPool pool = pool(0, 1, 100, 60_000);
+        for (int i = 0; i < 3; i++) {
+            try (Connection conn = pool.borrow(); PreparedStatement stmt = conn.prepareStatement("SELECT 1")) {
+                stmt.setInt(1, i);
+            }
+        }
+        assertEquals(1, prepared.size(), "Repeated SQL should reuse one statement");
+        assertFalse(prepared.get(0)[0]);
+        assertEquals(2, pool.metrics().statementHits());
+
+        try (Connection conn = pool.borrow()) {
+            try (PreparedStatement outer = conn.prepareStatement("SELECT 1");
+                 PreparedStatement inner = conn.prepareStatement("SELECT 1")) {
+                assertNotSame(outer, inner);
+            }
+            assertTrue(prepared.get(1)[0], "A nested prepare of the same SQL is not cached");
+            conn.prepareStatement("SELECT 2").close();
+            conn.prepareStatement("SELECT 3").close();
+        }
+        assertTrue(prepared.get(0)[0], "The least recently used statement is closed when the cache is full");
+        assertFalse(prepared.get(3)[0]);
+    }
+
+    @Test
+    void testAbandonedBatchIsCleared() throws SQLException {
+        ConnectionPool pool = pool(0, 1, 100, 60_000);
+        try (Connection conn = pool.borrow(); PreparedStatement stmt = conn.prepareStatement("UPDATE t SET x = ?")) {
+            stmt.setInt(1, 1);
+            stmt.addBatch();
+        }
+        try (Connection conn = pool.borrow(); PreparedStatement stmt = conn.prepareStatement("UPDATE t SET x = ?")) {
+            stmt.setInt(1, 2);
+            stmt.addBatch();
+            assertEquals(1, stmt.executeBatch().length, "Rows batched by an earlier borrower must not run");
+        }
+        assertEquals(1, prepared.size());
+    }
+
+    @Test
+    void testStatementsLeadBackToTheBorrowedConnection() throws SQLException {
+        ConnectionPool pool = pool(0, 1, 100, 60_000);
+        try (Connection conn = pool.borrow()) {
+            for (int i = 0; i < 2; i++) {
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT 1")) {
+                    assertSame(conn, stmt.getConnection());
+                    assertSame(stmt, stmt.executeQuery().getStatement());
+                }
+            }
+            try (PreparedStatement outer = conn.prepareStatement("SELECT 1");
+                 PreparedStatement inner = conn.prepareStatement("SELECT 1")) {
+                assertSame(conn, inner.getConnection(), "An uncached statement is wrapped too");
+                outer.getConnection().close();
+            }
+        }
+        assertFalse(opened.get(0)[0], "Closing a connection reached through a statement must not close it");
+        assertEquals(1, pool.metrics().idle());
+    }
+}
@@ -0,0 +1,62 @@
+package chess;
+
+/**
+ * Per-position attack information for a game: which enemy pieces give check
+ * to each king, and every square each team attacks. Entries are worked out
+ * on first use and belong to one board and piece placement; any move, take
+ * back, setBoard or direct edit of the board changes the piece key, so a
+ * stale entry is never served and nothing has to be invalidated by hand.
+ */
+final class AttackCache {
+    private static final int CHECKERS_KNOWN = 1;
+    private static final int ATTACKS_KNOWN = 4;
+
+    private ChessBoard board;
+    private long pieceKey;
+    private int known;
+    private final long[] checkers = new long[2];
+    private final long[] attacked = new long[2];
+
+    /**
+     * @return the bitboard of enemy pieces attacking the team's king, 0 if it
+     * is not in check or has no king
+     */
+    long checkers(ChessBoard current, ChessGame.TeamColor color) {
+        BitBoard bits = sync(current);
+        int flag = CHECKERS_KNOWN << color.ordinal();
+        if ((known & flag) == 0) {
+            int king = bits.kingSquare(color);
+            checkers[color.ordinal()] = king == BitBoard.NO_SQUARE ? 0
+                    : Attacks.attackersOf(bits, king, opponent(color), bits.occupied());
+            known |= flag;
+        }
+        return checkers[color.ordinal()];
+    }
+
+    /**
+     * @return the bitboard of every square the team attacks
+     */
+    long attacked(ChessBoard current, ChessGame.TeamColor color) {
+        BitBoard bits = sync(current);
+        int flag = ATTACKS_KNOWN << color.ordinal();
+        if ((known & flag) == 0) {
+            attacked[color.ordinal()] = Attacks.attackedSquares(bits, color, bits.occupied());
+            known |= flag;
+        }
+        return attacked[color.ordinal()];
+    }
+
+    private BitBoard sync(ChessBoard current) {
+        BitBoard bits = current.getBitBoard();
+        if (current != board || bits.pieceKey() != pieceKey) {
+            board = current;
+            pieceKey = bits.pieceKey();
+            known = 0;
+        }
+        return bits;
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,310 @@
+package chess;
+
+/**
+ * Precomputed attack tables for the bitboard representation.
+ * <p>
+ * Leapers (king, knight, pawn) are plain 64-entry lookups. Sliders use magic
+ * bitboards: the occupancy of the squares that can block a slider is
+ * multiplied by a per-square magic number, and the top bits of the product
+ * index a table holding the attack set for that occupancy. The tables are
+ * filled when the class loads, from the classical ray walk, which stays as
+ * the reference implementation.
+ * <p>
+ * The magics are fixed constants. Any number is acceptable as long as it
+ * maps every blocker pattern of its square without a harmful collision, so
+ * some squares share one. {@code fillTable} checks each as it fills the
+ * tables, and {@code AttacksTests.magicsMatchRayWalk} compares the lookups
+ * with the ray walk.
+ */
+final class Attacks {
+    static final long[] KNIGHT = new long[64];
+    static final long[] KING = new long[64];
+    static final long[][] PAWN = new long[2][64];
+
+    private static final int NORTH = 0;
+    private static final int EAST = 1;
+    private static final int NORTH_EAST = 2;
+    private static final int NORTH_WEST = 3;
+    private static final int SOUTH = 4;
+    private static final int WEST = 5;
+    private static final int SOUTH_WEST = 6;
+    private static final int SOUTH_EAST = 7;
+
+    // Ordered so that direction d and d + 4 point opposite ways
+    private static final int[][] DIRECTIONS = {
+            {1, 0},   // North
+            {0, 1},   // East
+            {1, 1},   // North-East
+            {1, -1},  // North-West
+            {-1, 0},  // South
+            {0, -1},  // West
+            {-1, -1}, // South-West
+            {-1, 1}   // South-East
+    };
+
+    private static final long[][] RAYS = new long[8][64];
+
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long FILE_H = FILE_A << 7;
+    private static final long RANK_1 = 0xFFL;
+    private static final long RANK_8 = RANK_1 << 56;
+
+    private static final long[] ROOK_MAGICS = {
+            0xA80004000801220L, 0x8040004010002008L, 0x2080200010008008L, 0x1100100008210004L,
+            0xC200209084020008L, 0x2100010004000208L, 0x400081000822421L, 0x200010422048844L,
+            0x800800080400024L, 0x1402000401000L, 0x3000801000802001L, 0x4400800800100083L,
+            0x904802402480080L, 0x4040800400020080L, 0x18808042000100L, 0x4040800080004100L,
+            0x40048001458024L, 0xA0004000205000L, 0x3100808010002000L, 0x4825010010000820L,
+            0x5004808008000401L, 0x2024818004000A00L, 0x5808002000100L, 0x2100060004806104L,
+            0x80400880008421L, 0x4062220600410280L, 0x10A004A00108022L, 0x100080080080L,
+            0x21000500080010L, 0x44000202001008L, 0x100400080102L, 0xC020128200040545L,
+            0x80002000400040L, 0x804000802004L, 0x120022004080L, 0x10A386103001001L,
+            0x9010080080800400L, 0x8440020080800400L, 0x4228824001001L, 0x490A000084L,
+            0x80002000504000L, 0x200020005000C000L, 0x12088020420010L, 0x10010080080800L,
+            0x85001008010004L, 0x2000204008080L, 0x40413002040008L, 0x304081020004L,
+            0x80204000800080L, 0x3008804000290100L, 0x1010100080200080L, 0x2008100208028080L,
+            0x5000850800910100L, 0x8402019004680200L, 0x120911028020400L, 0x8044010200L,
+            0x20850200244012L, 0x20850200244012L, 0x102001040841L, 0x140900040A100021L,
+            0x200282410A102L, 0x200282410A102L, 0x200282410A102L, 0x4048240043802106L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+            0x40106000A1160020L, 0x20010250810120L, 0x2010010220280081L, 0x2806004050C040L,
+            0x2021018000000L, 0x2001112010000400L, 0x881010120218080L, 0x1030820110010500L,
+            0x120222042400L, 0x2000020404040044L, 0x8000480094208000L, 0x3422A02000001L,
+            0xA220210100040L, 0x8004820202226000L, 0x18234854100800L, 0x100004042101040L,
+            0x4001004082820L, 0x10000810010048L, 0x1014004208081300L, 0x2080818802044202L,
+            0x40880C00A00100L, 0x80400200522010L, 0x1000188180B04L, 0x80249202020204L,
+            0x1004400004100410L, 0x13100A0022206L, 0x2148500001040080L, 0x4241080011004300L,
+            0x4020848004002000L, 0x10101380D1004100L, 0x8004422020284L, 0x1010A1041008080L,
+            0x808080400082121L, 0x808080400082121L, 0x91128200100C00L, 0x202200802010104L,
+            0x8C0A020200440085L, 0x1A0008080B10040L, 0x889520080122800L, 0x100902022202010AL,
+            0x4081A0816002000L, 0x681208005000L, 0x8170840041008802L, 0xA00004200810805L,
+            0x830404408210100L, 0x2602208106006102L, 0x1048300680802628L, 0x2602208106006102L,
+            0x602010120110040L, 0x941010801043000L, 0x40440A210428L, 0x8240020880021L,
+            0x400002012048200L, 0xAC102001210220L, 0x220021002009900L, 0x84440C080A013080L,
+            0x1008044200440L, 0x4C04410841000L, 0x2000500104011130L, 0x1A0C010011C20229L,
+            0x44800112202200L, 0x434804908100424L, 0x300404822C08200L, 0x48081010008A2A80L
+    };
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    /**
+     * Squares strictly between two squares on a shared rank, file or diagonal,
+     * or 0 if the squares are not aligned.
+     */
+    static final long[][] BETWEEN = new long[64][64];
+
+    /**
+     * The full line through two aligned squares, edge to edge, or 0 if the
+     * squares are not aligned.
+     */
+    static final long[][] LINE = new long[64][64];
+
+    static {
+        int[][] knightJumps = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+        for (int square = 0; square < 64; square++) {
+            int row = square >>> 3;
+            int col = square & 7;
+            for (int[] jump : knightJumps) {
+                KNIGHT[square] |= bit(row + jump[0], col + jump[1]);
+            }
+            for (int[] direction : DIRECTIONS) {
+                KING[square] |= bit(row + direction[0], col + direction[1]);
+            }
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] = bit(row + 1, col - 1) | bit(row + 1, col + 1);
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] = bit(row - 1, col - 1) | bit(row - 1, col + 1);
+
+            for (int dir = 0; dir < 8; dir++) {
+                int r = row + DIRECTIONS[dir][0];
+                int c = col + DIRECTIONS[dir][1];
+                while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                    RAYS[dir][square] |= 1L << (r * 8 + c);
+                    r += DIRECTIONS[dir][0];
+                    c += DIRECTIONS[dir][1];
+                }
+            }
+        }
+
+        for (int from = 0; from < 64; from++) {
+            for (int dir = 0; dir < 8; dir++) {
+                long ray = RAYS[dir][from];
+                int opposite = (dir + 4) % 8;
+                long remaining = ray;
+                while (remaining != 0) {
+                    int to = Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                    BETWEEN[from][to] = ray & RAYS[opposite][to];
+                    LINE[from][to] = ray | RAYS[opposite][from] | (1L << from);
+                }
+            }
+        }
+    }
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            // Edge squares never block anything beyond them, so they are left
+            // out of the masks, which keeps the tables small
+            ROOK_MASKS[square] = (RAYS[NORTH][square] & ~RANK_8) | (RAYS[SOUTH][square] & ~RANK_1)
+                    | (RAYS[EAST][square] & ~FILE_H) | (RAYS[WEST][square] & ~FILE_A);
+            BISHOP_MASKS[square] = (RAYS[NORTH_EAST][square] | RAYS[NORTH_WEST][square]
+                    | RAYS[SOUTH_EAST][square] | RAYS[SOUTH_WEST][square]) & ~(FILE_A | FILE_H | RANK_1 | RANK_8);
+            ROOK_SHIFTS[square] = 64 - Long.bitCount(ROOK_MASKS[square]);
+            BISHOP_SHIFTS[square] = 64 - Long.bitCount(BISHOP_MASKS[square]);
+            ROOK_TABLE[square] = new long[1 << Long.bitCount(ROOK_MASKS[square])];
+            BISHOP_TABLE[square] = new long[1 << Long.bitCount(BISHOP_MASKS[square])];
+            fillTable(square, ROOK_MASKS[square], ROOK_MAGICS[square], true, ROOK_TABLE[square]);
+            fillTable(square, BISHOP_MASKS[square], BISHOP_MAGICS[square], false, BISHOP_TABLE[square]);
+        }
+    }
+
+    private Attacks() {
+    }
+
+    /**
+     * Stores the attack set of every blocker pattern of the mask at the slot
+     * the magic sends it to. Two patterns may share a slot only if they also
+     * share an attack set.
+     */
+    private static void fillTable(int square, long mask, long magic, boolean rook, long[] table) {
+        int shift = 64 - Long.bitCount(mask);
+        boolean[] filled = new boolean[table.length];
+        long subset = 0;
+        do {
+            int index = (int) ((subset * magic) >>> shift);
+            long attacks = rook ? walkRook(square, subset) : walkBishop(square, subset);
+            if (filled[index] && table[index] != attacks) {
+                throw new IllegalStateException("Bad magic for square " + square);
+            }
+            filled[index] = true;
+            table[index] = attacks;
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+    }
+
+    private static long bit(int row, int col) {
+        if (row < 0 || row > 7 || col < 0 || col > 7) {
+            return 0L;
+        }
+        return 1L << (row * 8 + col);
+    }
+
+    private static long positiveRay(int dir, int square, long occupied) {
+        long ray = RAYS[dir][square];
+        long blockers = ray & occupied;
+        if (blockers == 0) {
+            return ray;
+        }
+        return ray ^ RAYS[dir][Long.numberOfTrailingZeros(blockers)];
+    }
+
+    private static long negativeRay(int dir, int square, long occupied) {
+        long ray = RAYS[dir][square];
+        long blockers = ray & occupied;
+        if (blockers == 0) {
+            return ray;
+        }
+        return ray ^ RAYS[dir][63 - Long.numberOfLeadingZeros(blockers)];
+    }
+
+    static long rook(int square, long occupied) {
+        return ROOK_TABLE[square][(int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square])
+                >>> ROOK_SHIFTS[square])];
+    }
+
+    static long bishop(int square, long occupied) {
+        return BISHOP_TABLE[square][(int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square])
+                >>> BISHOP_SHIFTS[square])];
+    }
+
+    /**
+     * Rook attacks by walking the rays, used to fill the magic tables
+     */
+    static long walkRook(int square, long occupied) {
+        return positiveRay(NORTH, square, occupied) | positiveRay(EAST, square, occupied)
+                | negativeRay(SOUTH, square, occupied) | negativeRay(WEST, square, occupied);
+    }
+
+    /**
+     * Bishop attacks by walking the rays, used to fill the magic tables
+     */
+    static long walkBishop(int square, long occupied) {
+        return positiveRay(NORTH_EAST, square, occupied) | positiveRay(NORTH_WEST, square, occupied)
+                | negativeRay(SOUTH_EAST, square, occupied) | negativeRay(SOUTH_WEST, square, occupied);
+    }
+
+    static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * @return the union of the rays leaving a square in the given
+     * {row, column} step directions
+     */
+    static long rays(int square, int[][] directions) {
+        long rays = 0;
+        for (int[] direction : directions) {
+            for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+                if (DIRECTIONS[dir][0] == direction[0] && DIRECTIONS[dir][1] == direction[1]) {
+                    rays |= RAYS[dir][square];
+                }
+            }
+        }
+        return rays;
+    }
+
+    /**
+     * @return every square at least one piece of the team attacks, with
+     * sliders evaluated against the given occupancy
+     */
+    static long attackedSquares(BitBoard bits, ChessGame.TeamColor attacker, long occupied) {
+        long attacked = 0;
+        long pieces = bits.occupancy(attacker);
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            attacked |= switch (ChessPiece.ofIndex(bits.pieceIndexAt(square)).getPieceType()) {
+                case KING -> KING[square];
+                case QUEEN -> queen(square, occupied);
+                case BISHOP -> bishop(square, occupied);
+                case KNIGHT -> KNIGHT[square];
+                case ROOK -> rook(square, occupied);
+                case PAWN -> PAWN[attacker.ordinal()][square];
+            };
+        }
+        return attacked;
+    }
+
+    /**
+     * Determines whether any piece of the given team attacks a square
+     *
+     * @param bits     the position
+     * @param square   the square being tested
+     * @param attacker the team doing the attacking
+     * @return True if at least one attacker piece hits the square
+     */
+    static boolean isAttacked(BitBoard bits, int square, ChessGame.TeamColor attacker) {
+        return attackersOf(bits, square, attacker, bits.occupied()) != 0;
+    }
+
+    /**
+     * @return the bitboard of every attacker piece that hits the square, with
+     * sliders evaluated against the given occupancy
+     */
+    static long attackersOf(BitBoard bits, int square, ChessGame.TeamColor attacker, long occupied) {
+        ChessGame.TeamColor defender = attacker == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long queens = bits.pieces(attacker, ChessPiece.PieceType.QUEEN);
+        return (PAWN[defender.ordinal()][square] & bits.pieces(attacker, ChessPiece.PieceType.PAWN))
+                | (KNIGHT[square] & bits.pieces(attacker, ChessPiece.PieceType.KNIGHT))
+                | (KING[square] & bits.pieces(attacker, ChessPiece.PieceType.KING))
+                | (bishop(square, occupied) & (bits.pieces(attacker, ChessPiece.PieceType.BISHOP) | queens))
+                | (rook(square, occupied) & (bits.pieces(attacker, ChessPiece.PieceType.ROOK) | queens));
+    }
+}
@@ -0,0 +1,204 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A chessboard stored as 64-bit bitboards: one long per piece type and colour,
+ * plus per-colour and total occupancy masks. Square indexes run from 0 (row 1,
+ * column 1) to 63 (row 8, column 8), so bit {@code (row - 1) * 8 + (column - 1)}
+ * is set when that square holds the piece.
+ * <p>
+ * A small mailbox array mirrors the bitboards so that "what is on this square"
+ * is a single array read instead of a scan over all twelve piece boards.
+ */
+public class BitBoard {
+    public static final int NO_SQUARE = -1;
+
+    private static final int EMPTY = -1;
+    private static final int PIECE_KINDS = 12;
+
+    private final long[] pieces = new long[PIECE_KINDS];
+    private final long[] occupancy = new long[2];
+    private long occupied;
+    private long key;
+    private final byte[] mailbox = new byte[64];
+
+    public BitBoard() {
+        Arrays.fill(mailbox, (byte) EMPTY);
+    }
+
+    /**
+     * Builds the bitboard equivalent of an existing chessboard
+     *
+     * @param board the board to convert
+     * @return a new bitboard holding the same pieces
+     */
+    public static BitBoard fromChessBoard(ChessBoard board) {
+        BitBoard bits = new BitBoard();
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.getPiece(ChessPosition.ofSquare(square));
+            if (piece != null) {
+                bits.put(square, piece);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Builds a chessboard holding the same pieces as this bitboard
+     *
+     * @return a new chessboard
+     */
+    public ChessBoard toChessBoard() {
+        ChessBoard board = new ChessBoard();
+        long remaining = occupied;
+        while (remaining != 0) {
+            int square = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            board.addPiece(ChessPosition.ofSquare(square), pieceAt(square));
+        }
+        return board;
+    }
+
+    /**
+     * @return the square index of a position, 0 for row 1 column 1 through 63
+     */
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    public static int square(int row, int column) {
+        return (row - 1) * 8 + (column - 1);
+    }
+
+    /**
+     * @return the row (1-8) of a square index
+     */
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the column (1-8) of a square index
+     */
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    /**
+     * @return the index into the per-piece bitboards for a colour and type
+     */
+    public static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    /**
+     * Places a piece on a square, replacing whatever was there
+     *
+     * @param square the square index
+     * @param piece  the piece to place, or null to empty the square
+     */
+    public void put(int square, ChessPiece piece) {
+        remove(square);
+        if (piece == null) {
+            return;
+        }
+        int index = pieceIndex(piece.getTeamColor(), piece.getPieceType());
+        long bit = 1L << square;
+        pieces[index] |= bit;
+        occupancy[piece.getTeamColor().ordinal()] |= bit;
+        occupied |= bit;
+        key ^= Zobrist.PIECE_SQUARE[index][square];
+        mailbox[square] = (byte) index;
+    }
+
+    /**
+     * Empties a square
+     *
+     * @param square the square index
+     */
+    public void remove(int square) {
+        int index = mailbox[square];
+        if (index == EMPTY) {
+            return;
+        }
+        long mask = ~(1L << square);
+        pieces[index] &= mask;
+        occupancy[index / 6] &= mask;
+        occupied &= mask;
+        key ^= Zobrist.PIECE_SQUARE[index][square];
+        mailbox[square] = (byte) EMPTY;
+    }
+
+    /**
+     * @return the piece on a square, or null if the square is empty
+     */
+    public ChessPiece pieceAt(int square) {
+        int index = mailbox[square];
+        if (index == EMPTY) {
+            return null;
+        }
+        return ChessPiece.ofIndex(index);
+    }
+
+    /**
+     * @return the per-piece index of the piece on a square, or -1 if empty
+     */
+    public int pieceIndexAt(int square) {
+        return mailbox[square];
+    }
+
+    /**
+     * @return the bitboard of every square holding the given piece
+     */
+    public long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces[pieceIndex(color, type)];
+    }
+
+    /**
+     * @return the bitboard of every square holding a piece of the given colour
+     */
+    public long occupancy(ChessGame.TeamColor color) {
+        return occupancy[color.ordinal()];
+    }
+
+    /**
+     * @return the bitboard of every occupied square
+     */
+    public long occupied() {
+        return occupied;
+    }
+
+    /**
+     * @return the Zobrist key of the piece placement alone, kept up to date by
+     * every put and remove
+     */
+    public long pieceKey() {
+        return key;
+    }
+
+    /**
+     * @return the square of the given team's king, or {@link #NO_SQUARE} if it has none
+     */
+    public int kingSquare(ChessGame.TeamColor color) {
+        long king = pieces(color, ChessPiece.PieceType.KING);
+        return king == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(king);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BitBoard that = (BitBoard) o;
+        return Arrays.equals(pieces, that.pieces);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (key ^ (key >>> 32));
+    }
+}
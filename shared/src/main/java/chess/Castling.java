@@ -0,0 +1,89 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Castling rights as a 4-bit set, plus the squares and masks castling needs.
+ * <p>
+ * Rights are kept up to date incrementally: every move ANDs the rights with the
+ * mask of its start and end squares, so a king or rook leaving home (or a rook
+ * being captured at home) drops the matching right without looking at history.
+ */
+final class Castling {
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+    static final int ALL = 15;
+
+    static final int WHITE_KING_HOME = 4;
+    static final int BLACK_KING_HOME = 60;
+
+    private static final int[] MASK = new int[64];
+
+    static {
+        Arrays.fill(MASK, ALL);
+        MASK[WHITE_KING_HOME] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        MASK[7] &= ~WHITE_KINGSIDE;
+        MASK[0] &= ~WHITE_QUEENSIDE;
+        MASK[BLACK_KING_HOME] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        MASK[63] &= ~BLACK_KINGSIDE;
+        MASK[56] &= ~BLACK_QUEENSIDE;
+    }
+
+    private Castling() {
+    }
+
+    /**
+     * @return the rights left after a move between the two squares
+     */
+    static int update(int rights, int from, int to) {
+        return rights & MASK[from] & MASK[to];
+    }
+
+    /**
+     * @return the kingside right for a team
+     */
+    static int kingside(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+    }
+
+    /**
+     * @return the queenside right for a team
+     */
+    static int queenside(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+    }
+
+    /**
+     * @return the home square of a team's king
+     */
+    static int kingHome(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE_KING_HOME : BLACK_KING_HOME;
+    }
+
+    /**
+     * Works out the rights a freshly set up board implies: a right is available
+     * while the king and that rook both stand on their home squares
+     *
+     * @param bits the position
+     * @return the implied castling rights
+     */
+    static int fromPlacement(BitBoard bits) {
+        int rights = 0;
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            int home = kingHome(color);
+            if ((bits.pieces(color, ChessPiece.PieceType.KING) & (1L << home)) == 0) {
+                continue;
+            }
+            long rooks = bits.pieces(color, ChessPiece.PieceType.ROOK);
+            if ((rooks & (1L << (home + 3))) != 0) {
+                rights |= kingside(color);
+            }
+            if ((rooks & (1L << (home - 4))) != 0) {
+                rights |= queenside(color);
+            }
+        }
+        return rights;
+    }
+}
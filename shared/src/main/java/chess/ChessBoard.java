@@ -1,6 +1,5 @@
 package chess;
 
-import java.util.Arrays;
 import java.util.Objects;
 
 
@@ -12,11 +11,44 @@ import java.util.Objects;
  */
 public class ChessBoard {
     private ChessPiece[][] squares = new ChessPiece[8][8];
+    private transient BitBoard bitBoard;
 
     public ChessBoard() {
 
     }
 
+    /**
+     * Creates an independent copy of another board
+     *
+     * @param other the board to copy
+     */
+    public ChessBoard(ChessBoard other) {
+        for (int row = 0; row < 8; row++) {
+            squares[row] = other.squares[row].clone();
+        }
+    }
+
+    /**
+     * Sets up a board from the piece placement field of a FEN string. A full
+     * FEN string is accepted too; everything after the first field is ignored.
+     *
+     * @param fen the placement, such as "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR"
+     * @return a board holding those pieces
+     * @throws IllegalArgumentException if the placement is malformed
+     */
+    public static ChessBoard fromFen(String fen) {
+        String trimmed = fen.strip();
+        int end = trimmed.indexOf(' ');
+        return Fen.parseBoard(end < 0 ? trimmed : trimmed.substring(0, end));
+    }
+
+    /**
+     * @return the piece placement field of FEN for this board
+     */
+    public String toFen() {
+        return Fen.formatBoard(this);
+    }
+
     /**
      * Adds a chess piece to the chessboard
      *
@@ -25,6 +57,28 @@ public class ChessBoard {
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
         squares[position.getRow() - 1][position.getColumn() - 1] = piece;
+        if (bitBoard != null) {
+            bitBoard.put(BitBoard.square(position), piece);
+        }
+    }
+
+    /**
+     * Places a piece by square index, keeping the bitboard view in step. Used
+     * by make and unmake, which already work in square indexes.
+     *
+     * @param square the square index
+     * @param piece  the piece to place, or null to empty the square
+     */
+    void setSquare(int square, ChessPiece piece) {
+        squares[square >>> 3][square & 7] = piece;
+        getBitBoard().put(square, piece);
+    }
+
+    /**
+     * @return the piece on a square index, or null if it is empty
+     */
+    ChessPiece getSquare(int square) {
+        return squares[square >>> 3][square & 7];
     }
 
     /**
@@ -38,6 +92,36 @@ public class ChessBoard {
         return squares[position.getRow() - 1][position.getColumn() - 1];
     }
 
+    /**
+     * Gets the bitboard view of this board. The view is built on first use
+     * (including after deserialization, which bypasses addPiece) and is kept
+     * in sync by every later call to addPiece. Building it also canonicalizes
+     * the pieces held by the board.
+     *
+     * @return the bitboard holding the same pieces as this board
+     */
+    public BitBoard getBitBoard() {
+        if (bitBoard == null) {
+            canonicalizePieces();
+            bitBoard = BitBoard.fromChessBoard(this);
+        }
+        return bitBoard;
+    }
+
+    /**
+     * Swaps every piece for its shared {@link ChessPiece#of} instance, so a
+     * board filled in by Gson does not keep its own copy of each piece
+     */
+    private void canonicalizePieces() {
+        for (ChessPiece[] row : squares) {
+            for (int col = 0; col < row.length; col++) {
+                if (row[col] != null) {
+                    row[col] = ChessPiece.of(row[col].getTeamColor(), row[col].getPieceType());
+                }
+            }
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -52,7 +136,7 @@ public class ChessBoard {
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return getBitBoard().hashCode();
     }
 
     /**
@@ -61,8 +145,8 @@ public class ChessBoard {
      */
     public void resetBoard() {
         for (int column = 1; column <= 8; column++) {
-            addPiece(new ChessPosition(2, column), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
-            addPiece(new ChessPosition(7, column), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(2, column), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(7, column), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
         ChessPiece.PieceType[] mainPieces = {
                 ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
@@ -72,8 +156,8 @@ public class ChessBoard {
 
 
         for (int column = 1; column <= 8; column++) {
-            addPiece(new ChessPosition(1, column), new ChessPiece(ChessGame.TeamColor.WHITE, mainPieces[column - 1]));
-            addPiece(new ChessPosition(8, column), new ChessPiece(ChessGame.TeamColor.BLACK, mainPieces[column - 1]));
+            addPiece(ChessPosition.of(1, column), ChessPiece.of(ChessGame.TeamColor.WHITE, mainPieces[column - 1]));
+            addPiece(ChessPosition.of(8, column), ChessPiece.of(ChessGame.TeamColor.BLACK, mainPieces[column - 1]));
         }
     }
 }
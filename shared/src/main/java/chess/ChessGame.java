@@ -1,6 +1,7 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 /**
@@ -10,9 +11,26 @@ import java.util.Collection;
  * signature of the existing methods.
  */
 public class ChessGame {
-    private ChessBoard board;
-    private TeamColor currentTurn;
-    private boolean isGameOver;
+    // Package-private so GameCodec can write and read them directly
+    ChessBoard board;
+    TeamColor currentTurn;
+    boolean isGameOver;
+    int castlingRights;
+    int enPassantSquare;
+    int halfmoveClock;
+    int fullmoveNumber = 1;
+    long[] positionHistory = new long[INITIAL_HISTORY];
+    int historySize;
+    DrawReason drawReason;
+    GameStatus status = GameStatus.NORMAL;
+    private final transient MoveUndo scratchUndo = new MoveUndo();
+    private final transient MoveList scratchMoves = new MoveList();
+    private final transient PositionTable.Entry scratchEntry = new PositionTable.Entry();
+    private final transient AttackCache attacks = new AttackCache();
+
+    private static final int INITIAL_HISTORY = 64;
+    private static final int FIFTY_MOVE_PLIES = 100;
+    private static final long LIGHT_SQUARES = 0x55AA55AA55AA55AAL;
 
 
     public ChessGame() {
@@ -20,9 +38,105 @@ public class ChessGame {
         this.board.resetBoard();
         this.currentTurn = TeamColor.WHITE;
         this.isGameOver = false;
+        this.castlingRights = Castling.ALL;
+        this.enPassantSquare = BitBoard.NO_SQUARE;
 
     }
 
+    /**
+     * Creates an independent copy of another game, including its castling
+     * rights, en passant square and repetition history, so the copy can be
+     * searched without touching the original
+     *
+     * @param other the game to copy
+     */
+    public ChessGame(ChessGame other) {
+        this.board = new ChessBoard(other.board);
+        this.currentTurn = other.currentTurn;
+        this.isGameOver = other.isGameOver;
+        this.castlingRights = other.castlingRights;
+        this.enPassantSquare = other.enPassantSquare;
+        this.halfmoveClock = other.halfmoveClock;
+        this.fullmoveNumber = other.fullmoveNumber;
+        this.positionHistory = other.positionHistory == null
+                ? new long[INITIAL_HISTORY] : other.positionHistory.clone();
+        this.historySize = other.historySize;
+        this.drawReason = other.drawReason;
+        this.status = other.status;
+    }
+
+    /**
+     * Sets up a game from a FEN string. The castling, en passant and clock
+     * fields are taken as given, except that a castling right whose king or
+     * rook is not on its home square is dropped. The two clock fields may be
+     * left off, in which case they default to 0 and 1.
+     *
+     * @param fen the position, such as
+     *            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"
+     * @return a game with no move history at that position
+     * @throws IllegalArgumentException if the string is not valid FEN
+     */
+    public static ChessGame fromFen(String fen) {
+        ChessGame game = parseFen(fen);
+        game.updateStatus();
+        return game;
+    }
+
+    /**
+     * Sets up a game from a FEN string whose status is already known, such as
+     * one stored with it, without searching for legal moves
+     *
+     * @param fen    the position, as for {@link #fromFen(String)}
+     * @param status the status of the side to move in that position
+     * @return a game with no move history at that position
+     * @throws IllegalArgumentException if the string is not valid FEN
+     */
+    public static ChessGame fromFen(String fen, GameStatus status) {
+        ChessGame game = parseFen(fen);
+        game.status = status;
+        return game;
+    }
+
+    private static ChessGame parseFen(String fen) {
+        String[] fields = fen.strip().split("\\s+");
+        if (fields.length < 4 || fields.length > 6) {
+            throw new IllegalArgumentException("FEN needs 4 to 6 fields: " + fen);
+        }
+        ChessGame game = new ChessGame();
+        game.board = Fen.parseBoard(fields[0]);
+        game.currentTurn = switch (fields[1]) {
+            case "w" -> TeamColor.WHITE;
+            case "b" -> TeamColor.BLACK;
+            default -> throw new IllegalArgumentException("Unknown FEN side to move: " + fields[1]);
+        };
+        game.castlingRights = Fen.parseCastling(fields[2]) & Castling.fromPlacement(game.board.getBitBoard());
+        game.enPassantSquare = Fen.parseSquare(fields[3]);
+        // The square passed over by the last move's pawn: rank 6 if white is to move, rank 3 if black is
+        int enPassantRow = game.currentTurn == TeamColor.WHITE ? 6 : 3;
+        if (game.enPassantSquare != BitBoard.NO_SQUARE && (game.enPassantSquare >>> 3) != enPassantRow - 1) {
+            throw new IllegalArgumentException("FEN en passant square is not on rank " + enPassantRow + ": " + fen);
+        }
+        game.halfmoveClock = fields.length > 4 ? Fen.parseCounter(fields[4], 0) : 0;
+        game.fullmoveNumber = fields.length > 5 ? Fen.parseCounter(fields[5], 1) : 1;
+        return game;
+    }
+
+    /**
+     * Describes the game's current position in FEN. The en passant field names
+     * the square behind any pawn that has just advanced two squares, whether
+     * or not a capture is possible.
+     *
+     * @return the position as a six-field FEN string
+     */
+    public String toFen() {
+        return Fen.formatBoard(board)
+                + (currentTurn == TeamColor.WHITE ? " w " : " b ")
+                + Fen.formatCastling(castlingRights) + ' '
+                + Fen.formatSquare(enPassantSquare) + ' '
+                + halfmoveClock + ' '
+                + fullmoveNumber;
+    }
+
     public boolean isGameOver() {
         return isGameOver;
     }
@@ -46,7 +160,214 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         this.currentTurn = team;
+        updateStatus();
+    }
 
+    /**
+     * Gets the 64-bit Zobrist key of the current position. Equal positions with
+     * the same side to move always share a key, so caches and repetition checks
+     * can compare a single long instead of the whole board. The piece part is
+     * updated incrementally by the board on every move.
+     *
+     * @return the position key
+     */
+    public long getZobristKey() {
+        BitBoard bits = board.getBitBoard();
+        long key = bits.pieceKey() ^ Zobrist.CASTLING[castlingRights];
+        if (currentTurn == TeamColor.BLACK) {
+            key ^= Zobrist.BLACK_TO_MOVE;
+        }
+        // Only hash the en passant file when a capture is actually available, so
+        // positions that differ in nothing else still repeat
+        if (enPassantSquare != BitBoard.NO_SQUARE && (Attacks.PAWN[opponent(currentTurn).ordinal()][enPassantSquare]
+                & bits.pieces(currentTurn, ChessPiece.PieceType.PAWN)) != 0) {
+            key ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+        }
+        return key;
+    }
+
+    /**
+     * @return true if the given team may still castle on the king's side,
+     * meaning neither its king nor its king-side rook has moved
+     */
+    public boolean canCastleKingside(TeamColor teamColor) {
+        return (castlingRights & Castling.kingside(teamColor)) != 0;
+    }
+
+    /**
+     * @return true if the given team may still castle on the queen's side,
+     * meaning neither its king nor its queen-side rook has moved
+     */
+    public boolean canCastleQueenside(TeamColor teamColor) {
+        return (castlingRights & Castling.queenside(teamColor)) != 0;
+    }
+
+    /**
+     * @return the square a pawn of the side to move may capture onto en passant,
+     * or null if the last move was not a two-square pawn advance
+     */
+    public ChessPosition getEnPassantPosition() {
+        if (enPassantSquare == BitBoard.NO_SQUARE) {
+            return null;
+        }
+        return ChessPosition.ofSquare(enPassantSquare);
+    }
+
+    private int enPassantSquareFor(TeamColor teamColor) {
+        return teamColor == currentTurn ? enPassantSquare : BitBoard.NO_SQUARE;
+    }
+
+    /**
+     * Where the side to move stands after the last move
+     */
+    public enum GameStatus {
+        NORMAL,
+        CHECK,
+        CHECKMATE,
+        STALEMATE
+    }
+
+    /**
+     * Gets the status of the side to move. It is worked out once, when a move
+     * is made or the board or turn is set, and travels with the game when it
+     * is serialized, so readers never have to search for mate themselves.
+     * Edits made directly to the board are not reflected until the next of
+     * those calls.
+     *
+     * @return the status of the team whose turn it is
+     */
+    public GameStatus getStatus() {
+        return status;
+    }
+
+    private void updateStatus() {
+        status = switch (probeStatus().status()) {
+            case PositionTable.STATUS_CHECK -> GameStatus.CHECK;
+            case PositionTable.STATUS_CHECKMATE -> GameStatus.CHECKMATE;
+            case PositionTable.STATUS_STALEMATE -> GameStatus.STALEMATE;
+            default -> GameStatus.NORMAL;
+        };
+    }
+
+    /**
+     * The ways a game can end in a draw without either side being stalemated
+     */
+    public enum DrawReason {
+        THREEFOLD_REPETITION,
+        FIFTY_MOVE_RULE,
+        INSUFFICIENT_MATERIAL
+    }
+
+    /**
+     * @return why the game was drawn, or null if it has not been drawn
+     */
+    public DrawReason getDrawReason() {
+        return drawReason;
+    }
+
+    /**
+     * Records why the game was drawn, for restoring a finished game saved in
+     * a form that does not carry its history
+     *
+     * @param drawReason why the game was drawn, or null if it has not been
+     */
+    public void setDrawReason(DrawReason drawReason) {
+        this.drawReason = drawReason;
+    }
+
+    /**
+     * @return the number of plies since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the number of the move being played, starting at 1 and going
+     * up after each black move
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * @return the number of plies played since the game began, counted from
+     * the fullmove number and the side to move, so a position loaded from
+     * FEN continues the original game's count
+     */
+    public int getPly() {
+        return (fullmoveNumber - 1) * 2 + (currentTurn == TeamColor.BLACK ? 1 : 0);
+    }
+
+    /**
+     * Determines if the current position has occurred at least twice before
+     * with the same side to move. Only positions since the last capture or pawn
+     * move can repeat, so the scan is bounded by the halfmove clock.
+     *
+     * @return True if the position has now occurred three times
+     */
+    public boolean isThreefoldRepetition() {
+        long key = getZobristKey();
+        int earliest = Math.max(0, historySize - halfmoveClock);
+        int repeats = 0;
+        for (int i = historySize - 2; i >= earliest; i -= 2) {
+            if (positionHistory[i] == key && ++repeats == 2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines if the current position has occurred at least once before
+     * with the same side to move. A search treats this as a draw, since a side
+     * that can repeat once can repeat again.
+     *
+     * @return True if the position is a repeat
+     */
+    public boolean isRepetition() {
+        long key = getZobristKey();
+        int earliest = Math.max(0, historySize - halfmoveClock);
+        for (int i = historySize - 2; i >= earliest; i -= 2) {
+            if (positionHistory[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return True if fifty moves by each side have passed without a capture or pawn move
+     */
+    public boolean isFiftyMoveRule() {
+        return halfmoveClock >= FIFTY_MOVE_PLIES;
+    }
+
+    /**
+     * Determines if neither side has enough material left to deliver mate: bare
+     * kings, a single minor piece, or only bishops that all stand on the same
+     * square colour
+     *
+     * @return True if checkmate is impossible for both sides
+     */
+    public boolean isInsufficientMaterial() {
+        BitBoard bits = board.getBitBoard();
+        long heavy = 0;
+        long knights = 0;
+        long bishops = 0;
+        for (TeamColor color : TeamColor.values()) {
+            heavy |= bits.pieces(color, ChessPiece.PieceType.PAWN) | bits.pieces(color, ChessPiece.PieceType.ROOK)
+                    | bits.pieces(color, ChessPiece.PieceType.QUEEN);
+            knights |= bits.pieces(color, ChessPiece.PieceType.KNIGHT);
+            bishops |= bits.pieces(color, ChessPiece.PieceType.BISHOP);
+        }
+        if (heavy != 0) {
+            return false;
+        }
+        if (knights == 0) {
+            return (bishops & LIGHT_SQUARES) == 0 || (bishops & ~LIGHT_SQUARES) == 0;
+        }
+        return Long.bitCount(knights) == 1 && bishops == 0;
     }
 
     /**
@@ -69,56 +390,96 @@ public class ChessGame {
         if (piece == null) {
             return null;
         }
-        Collection<ChessMove> allMoves = piece.pieceMoves(board, startPosition);
-
-        Collection<ChessMove> allowedMoves = new ArrayList<>();
-        for (ChessMove move : allMoves) {
-            if (isAllowed(move)) {
-
-                allowedMoves.add(move);
-            }
 
+        if (piece.getTeamColor() == currentTurn
+                && (probeStatus().movable() & (1L << BitBoard.square(startPosition))) == 0) {
+            return new ArrayList<>();
         }
-
-        return allowedMoves;
+        MoveList moves = new MoveList();
+        MoveGenerator.generate(board.getBitBoard(), piece.getTeamColor(), castlingRights,
+                enPassantSquareFor(piece.getTeamColor()), 1L << BitBoard.square(startPosition), moves);
+        return moves.toChessMoves(new ArrayList<>(moves.size()));
     }
 
-    private boolean isAllowed(ChessMove move) {
+    /**
+     * Gets every legal move for the team whose turn it is
+     *
+     * @return Collection of legal moves, empty if the team has none
+     */
+    public Collection<ChessMove> legalMoves() {
+        MoveList moves = new MoveList();
+        legalMoves(moves);
+        return moves.toChessMoves(new ArrayList<>(moves.size()));
+    }
 
-        ChessBoard boardCopy = new ChessBoard();
+    /**
+     * Fills a move list with every legal move for the team whose turn it is,
+     * in packed form. The list is cleared first, so callers can keep one list
+     * per ply and never allocate during a search.
+     *
+     * @param moves the list to fill
+     */
+    public void legalMoves(MoveList moves) {
+        moves.clear();
+        MoveGenerator.generate(board.getBitBoard(), currentTurn, castlingRights, enPassantSquare, -1L, moves);
+    }
 
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(position);
-                if (piece != null) {
-                    ChessPiece newPiece = new ChessPiece(piece.getTeamColor(), piece.getPieceType());
-                    boardCopy.addPiece(position, newPiece);
-                }
+    /**
+     * Fills a move list with the legal captures and promotions for the team
+     * whose turn it is, the moves a quiescence search looks at
+     *
+     * @param moves the list to fill
+     */
+    public void legalCaptures(MoveList moves) {
+        legalMoves(moves);
+        int kept = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (Move.isCapture(move) || Move.isPromotion(move)) {
+                moves.set(kept++, move);
             }
         }
+        moves.truncate(kept);
+    }
 
-
-        ChessPiece pieceToMove = boardCopy.getPiece(move.getStartPosition());
-        if (pieceToMove == null) {
-            return false;
+    /**
+     * Looks up the status of the current position for the side to move in the
+     * shared {@link PositionTable}, working it out and storing it on a miss.
+     * Games in a common opening share entries, so most lookups are hits.
+     *
+     * @return the filled-in scratch entry
+     */
+    private PositionTable.Entry probeStatus() {
+        long key = getZobristKey();
+        PositionTable table = PositionTable.shared();
+        if (table.probe(key, scratchEntry) && scratchEntry.status() != PositionTable.STATUS_UNKNOWN) {
+            return scratchEntry;
         }
-        boardCopy.addPiece(move.getStartPosition(), null);
-        boardCopy.addPiece(move.getEndPosition(), pieceToMove);
-
-
-        ChessBoard originalBoard = this.board;
-        this.board = boardCopy;
-
-
-        ChessGame.TeamColor teamColor = pieceToMove.getTeamColor();
-        boolean isInCheck = isInCheck(teamColor);
-
-
-        this.board = originalBoard;
-
+        legalMoves(scratchMoves);
+        long movable = 0;
+        for (int i = 0; i < scratchMoves.size(); i++) {
+            movable |= 1L << Move.from(scratchMoves.get(i));
+        }
+        boolean inCheck = isInCheck(currentTurn);
+        int status;
+        if (movable != 0) {
+            status = inCheck ? PositionTable.STATUS_CHECK : PositionTable.STATUS_NORMAL;
+        } else {
+            status = inCheck ? PositionTable.STATUS_CHECKMATE : PositionTable.STATUS_STALEMATE;
+        }
+        table.storeStatus(key, movable, status);
+        scratchEntry.set(movable, status);
+        return scratchEntry;
+    }
 
-        return !isInCheck;
+    private boolean hasLegalMove(TeamColor teamColor) {
+        if (teamColor == currentTurn) {
+            return probeStatus().movable() != 0;
+        }
+        scratchMoves.clear();
+        MoveGenerator.generate(board.getBitBoard(), teamColor, castlingRights, enPassantSquareFor(teamColor), -1L,
+                scratchMoves);
+        return !scratchMoves.isEmpty();
     }
 
 
@@ -139,81 +500,181 @@ public class ChessGame {
         if (piece.getTeamColor() != currentTurn) {
             throw new InvalidMoveException("It's not " + piece.getTeamColor() + "'s turn.");
         }
-        Collection<ChessMove> validMoves = validMoves(move.getStartPosition());
-        if (validMoves == null || !validMoves.contains(move)) {
+        scratchMoves.clear();
+        MoveGenerator.generate(board.getBitBoard(), currentTurn, castlingRights, enPassantSquare,
+                1L << BitBoard.square(move.getStartPosition()), scratchMoves);
+        int index = scratchMoves.indexOf(Move.encode(move));
+        if (index < 0) {
             throw new InvalidMoveException("Invalid move!");
         }
 
-
-        board.addPiece(move.getStartPosition(), null);
-
-
-        ChessPiece.PieceType promotion = move.getPromotionPiece();
-        if (promotion != null && piece.getPieceType() == ChessPiece.PieceType.PAWN) {
-
-            piece = new ChessPiece(piece.getTeamColor(), promotion);
+        makeMove(scratchMoves.get(index), scratchUndo);
+        updateStatus();
+        if (status == GameStatus.CHECKMATE || status == GameStatus.STALEMATE) {
+            isGameOver = true;
         }
+        // Mate ends the game even if the same move also reaches a draw
+        if (status == GameStatus.CHECKMATE) {
+            return;
+        }
+        detectDraw();
+    }
 
-
-        board.addPiece(move.getEndPosition(), piece);
-
-
-        currentTurn = (currentTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+    private void detectDraw() {
+        if (isThreefoldRepetition()) {
+            drawReason = DrawReason.THREEFOLD_REPETITION;
+        } else if (isFiftyMoveRule()) {
+            drawReason = DrawReason.FIFTY_MOVE_RULE;
+        } else if (isInsufficientMaterial()) {
+            drawReason = DrawReason.INSUFFICIENT_MATERIAL;
+        }
+        if (drawReason != null) {
+            isGameOver = true;
+        }
     }
 
+    /**
+     * Plays a move in place without checking that it is legal, recording what
+     * is needed to take it back. The piece at the start position must exist.
+     * Castling (a king moving two columns) also moves the rook, and a pawn
+     * moving diagonally onto the en passant square captures the pawn beside it.
+     *
+     * @param move the move to play
+     * @param undo record to fill in, reused by the caller between moves
+     */
+    public void makeMove(ChessMove move, MoveUndo undo) {
+        makeMove(Move.encode(move), undo);
+    }
 
     /**
-     * Determines if the given team is in check
+     * Plays a packed move in place without checking that it is legal. Behaves
+     * exactly like {@link #makeMove(ChessMove, MoveUndo)}; the move's flag bits
+     * are not needed, since the board already says what the move does.
      *
-     * @param teamColor which team to check for check
-     * @return True if the specified team is in check
+     * @param move the packed move to play
+     * @param undo record to fill in, reused by the caller between moves
      */
-    private ChessPosition findKing(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
-                if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && piece.getTeamColor() == teamColor) {
-                    return new ChessPosition(row, col);
-                }
-            }
+    public void makeMove(int move, MoveUndo undo) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = board.getSquare(from);
+
+        undo.move = move;
+        undo.movedPiece = piece;
+        undo.capturedPiece = board.getSquare(to);
+        undo.captureSquare = to;
+        undo.previousTurn = currentTurn;
+        undo.previousCastlingRights = castlingRights;
+        undo.previousEnPassantSquare = enPassantSquare;
+        undo.previousHalfmoveClock = halfmoveClock;
+        pushHistory(getZobristKey());
+
+        ChessPiece.PieceType type = piece.getPieceType();
+        if (type == ChessPiece.PieceType.PAWN && to == enPassantSquare && undo.capturedPiece == null) {
+            int captured = to + (piece.getTeamColor() == TeamColor.WHITE ? -8 : 8);
+            undo.capturedPiece = board.getSquare(captured);
+            undo.captureSquare = captured;
+            board.setSquare(captured, null);
         }
-        return null;
-    }
 
+        board.setSquare(from, null);
 
-    public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPosition = findKing(teamColor);
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        if (promotion != null && type == ChessPiece.PieceType.PAWN) {
+            piece = ChessPiece.of(piece.getTeamColor(), promotion);
+        }
 
+        board.setSquare(to, piece);
 
-        if (kingPosition == null) {
-            return false;
+        if (type == ChessPiece.PieceType.KING && Math.abs(to - from) == 2) {
+            moveCastlingRook(from, to, false);
         }
 
+        castlingRights = Castling.update(castlingRights, from, to);
+        halfmoveClock = type == ChessPiece.PieceType.PAWN || undo.capturedPiece != null ? 0 : halfmoveClock + 1;
+        enPassantSquare = type == ChessPiece.PieceType.PAWN && Math.abs(to - from) == 16
+                ? (from + to) / 2 : BitBoard.NO_SQUARE;
+        if (piece.getTeamColor() == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+        currentTurn = opponent(piece.getTeamColor());
+    }
 
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition currentPosition = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(currentPosition);
+    /**
+     * Takes back a move made with {@link #makeMove(int, MoveUndo)}.
+     * Moves must be unmade in the reverse order they were made.
+     *
+     * @param undo the record filled in when the move was made
+     */
+    public void unmakeMove(MoveUndo undo) {
+        int from = Move.from(undo.move);
+        int to = Move.to(undo.move);
 
+        if (undo.movedPiece.getPieceType() == ChessPiece.PieceType.KING && Math.abs(to - from) == 2) {
+            moveCastlingRook(from, to, true);
+        }
 
-                if (piece == null || piece.getTeamColor() == teamColor) {
-                    continue;
-                }
+        if (undo.captureSquare == to) {
+            board.setSquare(to, undo.capturedPiece);
+        } else {
+            board.setSquare(to, null);
+            board.setSquare(undo.captureSquare, undo.capturedPiece);
+        }
+        board.setSquare(from, undo.movedPiece);
+
+        currentTurn = undo.previousTurn;
+        castlingRights = undo.previousCastlingRights;
+        enPassantSquare = undo.previousEnPassantSquare;
+        halfmoveClock = undo.previousHalfmoveClock;
+        if (undo.movedPiece.getTeamColor() == TeamColor.BLACK) {
+            fullmoveNumber--;
+        }
+        historySize--;
+    }
 
+    private void pushHistory(long key) {
+        if (positionHistory == null) {
+            positionHistory = new long[INITIAL_HISTORY];
+        } else if (historySize == positionHistory.length) {
+            positionHistory = Arrays.copyOf(positionHistory, historySize * 2);
+        }
+        positionHistory[historySize++] = key;
+    }
 
-                Collection<ChessMove> opponentMoves = piece.pieceMoves(board, currentPosition);
+    private void moveCastlingRook(int kingFrom, int kingTo, boolean undo) {
+        int rookHome = kingTo > kingFrom ? kingFrom + 3 : kingFrom - 4;
+        int rookCastled = (kingFrom + kingTo) / 2;
+        int rookFrom = undo ? rookCastled : rookHome;
+        int rookTo = undo ? rookHome : rookCastled;
+        ChessPiece rook = board.getSquare(rookFrom);
+        board.setSquare(rookFrom, null);
+        board.setSquare(rookTo, rook);
+    }
 
 
-                for (ChessMove move : opponentMoves) {
-                    if (move.getEndPosition().equals(kingPosition)) {
-                        return true;
-                    }
-                }
-            }
-        }
+    /**
+     * Determines if the given team is in check
+     *
+     * @param teamColor which team to check for check
+     * @return True if the specified team is in check
+     */
+    public boolean isInCheck(TeamColor teamColor) {
+        return attacks.checkers(board, teamColor) != 0;
+    }
 
+    /**
+     * Gets every square the given team attacks in the current position, as a
+     * {@link BitBoard} square mask. Worked out once per position.
+     *
+     * @param teamColor the attacking team
+     * @return bit (row - 1) * 8 + (column - 1) is set for each attacked square
+     */
+    public long getAttackedSquares(TeamColor teamColor) {
+        return attacks.attacked(board, teamColor);
+    }
 
-        return false;
+    private static TeamColor opponent(TeamColor teamColor) {
+        return teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
 
@@ -224,31 +685,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition currentPosition = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(currentPosition);
-
-
-                if (piece == null || piece.getTeamColor() != teamColor) {
-                    continue;
-                }
-
-
-                Collection<ChessMove> possibleMoves = piece.pieceMoves(board, currentPosition);
-
-
-                for (ChessMove move : possibleMoves) {
-                    if (isAllowed(move)) {
-                        return false;
-                    }
-                }
-            }
-        }
-
-
-        return true;
+        return isInCheck(teamColor) && !hasLegalMove(teamColor);
     }
 
     /**
@@ -259,44 +696,27 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-
-        if (isInCheck(teamColor)) {
-            return false;
-        }
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPosition currentPosition = new ChessPosition(r, c);
-                ChessPiece piece = board.getPiece(currentPosition);
-
-
-                if (piece == null || piece.getTeamColor() != teamColor) {
-                    continue;
-                }
-
-
-                Collection<ChessMove> possibleMoves = piece.pieceMoves(board, currentPosition);
-
-
-                for (ChessMove move : possibleMoves) {
-                    if (isAllowed(move)) {
-                        return false;
-                    }
-                }
-            }
-        }
-
-
-        return true;
+        return !isInCheck(teamColor) && !hasLegalMove(teamColor);
     }
 
 
     /**
-     * Sets this game's chessboard with a given board
+     * Sets this game's chessboard with a given board. Castling rights are
+     * taken from the placement: a side may castle while its king and that rook
+     * stand on their home squares. No en passant capture is available, and
+     * the move clocks and repetition history start over.
      *
      * @param board the new board to use
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        this.castlingRights = Castling.fromPlacement(board.getBitBoard());
+        this.enPassantSquare = BitBoard.NO_SQUARE;
+        this.halfmoveClock = 0;
+        this.fullmoveNumber = 1;
+        this.historySize = 0;
+        this.drawReason = null;
+        updateStatus();
     }
 
     /**
@@ -61,4 +61,51 @@ public class ChessMove {
     public ChessPiece.PieceType getPromotionPiece() {
         return promotionpiece;
     }
+
+    /**
+     * @return the move in UCI long algebraic notation, such as "e2e4", or
+     * "e7e8q" for a promotion
+     */
+    public String toUci() {
+        StringBuilder out = new StringBuilder(5)
+                .append(Fen.formatSquare(BitBoard.square(startpos)))
+                .append(Fen.formatSquare(BitBoard.square(endpos)));
+        if (promotionpiece != null) {
+            out.append(switch (promotionpiece) {
+                case QUEEN -> 'q';
+                case ROOK -> 'r';
+                case BISHOP -> 'b';
+                case KNIGHT -> 'n';
+                default -> throw new IllegalStateException("Cannot promote to " + promotionpiece);
+            });
+        }
+        return out.toString();
+    }
+
+    /**
+     * @param uci a move in UCI long algebraic notation, such as "e2e4" or "e7e8q"
+     * @return the move
+     * @throws IllegalArgumentException if the text is not a UCI move
+     */
+    public static ChessMove fromUci(String uci) {
+        if (uci.length() != 4 && uci.length() != 5) {
+            throw new IllegalArgumentException("Not a UCI move: " + uci);
+        }
+        ChessPiece.PieceType promotion = null;
+        if (uci.length() == 5) {
+            promotion = switch (uci.charAt(4)) {
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                case 'n' -> ChessPiece.PieceType.KNIGHT;
+                default -> throw new IllegalArgumentException("Not a UCI promotion: " + uci);
+            };
+        }
+        int from = Fen.parseSquare(uci.substring(0, 2));
+        int to = Fen.parseSquare(uci.substring(2, 4));
+        if (from == BitBoard.NO_SQUARE || to == BitBoard.NO_SQUARE) {
+            throw new IllegalArgumentException("Not a UCI move: " + uci);
+        }
+        return new ChessMove(ChessPosition.ofSquare(from), ChessPosition.ofSquare(to), promotion);
+    }
 }
@@ -3,7 +3,6 @@ package chess;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Represents a single chess piece
@@ -15,11 +14,41 @@ public class ChessPiece {
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
 
+    private static final ChessPiece[] CANONICAL = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType pieceType : PieceType.values()) {
+                CANONICAL[BitBoard.pieceIndex(color, pieceType)] = new ChessPiece(color, pieceType);
+            }
+        }
+    }
+
     public ChessPiece(ChessGame.TeamColor pieceColor, PieceType type) {
         this.pieceColor = pieceColor; // Store the color
         this.type = type;             // Store the type
     }
 
+    /**
+     * Gets the shared instance for a colour and type. Pieces are immutable, so
+     * boards and move generation reuse these 12 instances instead of
+     * allocating a new piece per square.
+     *
+     * @param pieceColor the team the piece belongs to
+     * @param type       the kind of piece
+     * @return the canonical piece
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, PieceType type) {
+        return CANONICAL[BitBoard.pieceIndex(pieceColor, type)];
+    }
+
+    /**
+     * @return the canonical piece for a {@link BitBoard} piece index
+     */
+    static ChessPiece ofIndex(int index) {
+        return CANONICAL[index];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -46,7 +75,7 @@ public class ChessPiece {
 
     @Override
     public int hashCode() {
-        return Objects.hash(pieceColor, type);
+        return BitBoard.pieceIndex(pieceColor, type);
     }
 
     /**
@@ -90,39 +119,36 @@ public class ChessPiece {
 
     public abstract static class DirectionalMovesCalculator implements PieceMovesCalculator {
 
+        /**
+         * Slider moves from the magic attack tables: the attack set for the
+         * board's occupancy, cut down to the requested directions, minus
+         * squares held by the mover's own team
+         */
         protected Collection<ChessMove> calculateMoves(ChessBoard board, ChessPosition myPosition, int[][] directions) {
             List<ChessMove> possibleMoves = new ArrayList<>();
-            int currentRow = myPosition.getRow();
-            int currentColumn = myPosition.getColumn();
+            BitBoard bits = board.getBitBoard();
+            int square = BitBoard.square(myPosition);
+            long occupied = bits.occupied();
 
+            boolean orthogonal = false;
+            boolean diagonal = false;
             for (int[] direction : directions) {
-                int newRow = currentRow;
-                int newCol = currentColumn;
-
-                while (true) {
-                    newRow += direction[0];
-                    newCol += direction[1];
-
-
-                    if (newRow < 1 || newRow > 8 || newCol < 1 || newCol > 8) {
-                        break;
-                    }
-
-                    ChessPosition newPosition = new ChessPosition(newRow, newCol);
-                    ChessPiece pieceAtNewPosition = board.getPiece(newPosition);
-
-
-                    if (pieceAtNewPosition == null) {
-                        possibleMoves.add(new ChessMove(myPosition, newPosition, null));
-                    } else {
-                        if (pieceAtNewPosition.getTeamColor() != board.getPiece(myPosition).getTeamColor()) {
-                            possibleMoves.add(new ChessMove(myPosition, newPosition, null));
-                        }
-                        break; // Stop when hitting another piece
-                    }
+                if (direction[0] == 0 || direction[1] == 0) {
+                    orthogonal = true;
+                } else {
+                    diagonal = true;
                 }
             }
-
+            long targets = (orthogonal ? Attacks.rook(square, occupied) : 0)
+                    | (diagonal ? Attacks.bishop(square, occupied) : 0);
+            targets &= Attacks.rays(square, directions)
+                    & ~bits.occupancy(board.getPiece(myPosition).getTeamColor());
+
+            while (targets != 0) {
+                int target = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                possibleMoves.add(new ChessMove(myPosition, ChessPosition.ofSquare(target), null));
+            }
             return possibleMoves;
         }
     }
@@ -149,7 +175,7 @@ public class ChessPiece {
                 int newRow = currentRow + direction[0];
                 int newCol = currentColumn + direction[1];
                 if (newRow >= 1 && newRow <= 8 && newCol >= 1 && newCol <= 8) {
-                    ChessPosition newPosition = new ChessPosition(newRow, newCol);
+                    ChessPosition newPosition = ChessPosition.of(newRow, newCol);
                     ChessPiece pieceAtNewPosition = board.getPiece(newPosition);
                     if (pieceAtNewPosition == null || pieceAtNewPosition.getTeamColor() != ChessPiece.this.getTeamColor()) {
                         possibleMovesKing.add(new ChessMove(myPosition, newPosition, null));
@@ -199,7 +225,7 @@ public class ChessPiece {
                 int newRow = currentRow + direction[0];
                 int newCol = currentColumn + direction[1];
                 if (newRow >= 1 && newRow <= 8 && newCol >= 1 && newCol <= 8) {
-                    ChessPosition newPosition = new ChessPosition(newRow, newCol);
+                    ChessPosition newPosition = ChessPosition.of(newRow, newCol);
                     ChessPiece pieceAtNewPosition = board.getPiece(newPosition);
                     if (pieceAtNewPosition == null || pieceAtNewPosition.getTeamColor() != ChessPiece.this.getTeamColor()) {
                         possibleMovesKnight.add(new ChessMove(myPosition, newPosition, null));
@@ -265,9 +291,9 @@ public class ChessPiece {
 
             if (currentRow == startingRow) {
                 int newRow = currentRow + (2 * direction);
-                ChessPosition newPosition = new ChessPosition(newRow, currentColumn);
+                ChessPosition newPosition = ChessPosition.of(newRow, currentColumn);
                 ChessPiece pieceAtNewPosition = board.getPiece(newPosition);
-                ChessPiece pieceInFront = board.getPiece(new ChessPosition(currentRow + direction, currentColumn));
+                ChessPiece pieceInFront = board.getPiece(ChessPosition.of(currentRow + direction, currentColumn));
                 if (pieceAtNewPosition == null && pieceInFront == null) {
                     possibleMovesPawn.add(new ChessMove(myPosition, newPosition, null));
                 }
@@ -290,7 +316,7 @@ public class ChessPiece {
 
 
                 if (newRow >= 1 && newRow <= 8 && newCol >= 1 && newCol <= 8) {
-                    ChessPosition newPosition = new ChessPosition(newRow, newCol);
+                    ChessPosition newPosition = ChessPosition.of(newRow, newCol);
                     ChessPiece pieceAtNewPosition = board.getPiece(newPosition);
 
 
@@ -13,6 +13,14 @@ public class ChessPosition {
     private final int row;
     private final int col;
 
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new ChessPosition(square / 8 + 1, square % 8 + 1);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -35,6 +43,28 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Gets the shared instance for a square. Positions are immutable, so move
+     * generation hands out these 64 instances instead of allocating new ones.
+     *
+     * @param row the row, 1 for the bottom row
+     * @param col the column, 1 for the left column
+     * @return the cached position, or a new one if the square is off the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return SQUARES[(row - 1) * 8 + (col - 1)];
+    }
+
+    /**
+     * @return the cached position for a {@link BitBoard} square index
+     */
+    static ChessPosition ofSquare(int square) {
+        return SQUARES[square];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
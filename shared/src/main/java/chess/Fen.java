@@ -0,0 +1,189 @@
+package chess;
+
+/**
+ * Reads and writes the fields of Forsyth-Edwards Notation. Each FEN piece
+ * letter is the first letter of the piece's name (N for knight), upper case
+ * for white, and ranks run from the eighth down to the first.
+ *
+ * @see <a href="https://www.chessprogramming.org/Forsyth-Edwards_Notation">Forsyth-Edwards Notation</a>
+ */
+final class Fen {
+    // Indexed by PieceType ordinal
+    private static final String PIECE_LETTERS = "kqbnrp";
+
+    private Fen() {
+    }
+
+    /**
+     * @param placement the piece placement field, eight ranks separated by '/'
+     * @return a board holding those pieces
+     * @throws IllegalArgumentException if the field is malformed
+     */
+    static ChessBoard parseBoard(String placement) {
+        String[] ranks = placement.split("/", -1);
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("FEN placement needs 8 ranks: " + placement);
+        }
+        ChessBoard board = new ChessBoard();
+        for (int i = 0; i < 8; i++) {
+            int row = 8 - i;
+            int column = 1;
+            for (char c : ranks[i].toCharArray()) {
+                if (c >= '1' && c <= '8') {
+                    column += c - '0';
+                } else {
+                    if (column > 8) {
+                        throw new IllegalArgumentException("FEN rank " + row + " has more than 8 squares: " + placement);
+                    }
+                    board.setSquare(BitBoard.square(row, column), piece(c));
+                    column++;
+                }
+            }
+            if (column != 9) {
+                throw new IllegalArgumentException("FEN rank " + row + " does not have 8 squares: " + placement);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * @param board the board to describe
+     * @return the piece placement field for the board
+     */
+    static String formatBoard(ChessBoard board) {
+        StringBuilder out = new StringBuilder(72);
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int column = 1; column <= 8; column++) {
+                ChessPiece piece = board.getSquare(BitBoard.square(row, column));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                out.append(letter(piece));
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                out.append('/');
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * @param field the castling field, "-" or any of "KQkq" in that order
+     * @return the rights as a {@link Castling} set
+     * @throws IllegalArgumentException if the field is malformed
+     */
+    static int parseCastling(String field) {
+        if (field.equals("-")) {
+            return 0;
+        }
+        int rights = 0;
+        for (char c : field.toCharArray()) {
+            int right = switch (c) {
+                case 'K' -> Castling.WHITE_KINGSIDE;
+                case 'Q' -> Castling.WHITE_QUEENSIDE;
+                case 'k' -> Castling.BLACK_KINGSIDE;
+                case 'q' -> Castling.BLACK_QUEENSIDE;
+                default -> throw new IllegalArgumentException("Unknown FEN castling right: " + field);
+            };
+            if ((rights & right) != 0) {
+                throw new IllegalArgumentException("Repeated FEN castling right: " + field);
+            }
+            rights |= right;
+        }
+        return rights;
+    }
+
+    /**
+     * @param rights a {@link Castling} set
+     * @return the castling field for the rights
+     */
+    static String formatCastling(int rights) {
+        if (rights == 0) {
+            return "-";
+        }
+        StringBuilder out = new StringBuilder(4);
+        if ((rights & Castling.WHITE_KINGSIDE) != 0) {
+            out.append('K');
+        }
+        if ((rights & Castling.WHITE_QUEENSIDE) != 0) {
+            out.append('Q');
+        }
+        if ((rights & Castling.BLACK_KINGSIDE) != 0) {
+            out.append('k');
+        }
+        if ((rights & Castling.BLACK_QUEENSIDE) != 0) {
+            out.append('q');
+        }
+        return out.toString();
+    }
+
+    /**
+     * @param field a square in algebraic notation, such as "e3", or "-"
+     * @return the square index, or {@link BitBoard#NO_SQUARE} for "-"
+     * @throws IllegalArgumentException if the field is malformed
+     */
+    static int parseSquare(String field) {
+        if (field.equals("-")) {
+            return BitBoard.NO_SQUARE;
+        }
+        if (field.length() != 2 || field.charAt(0) < 'a' || field.charAt(0) > 'h'
+                || field.charAt(1) < '1' || field.charAt(1) > '8') {
+            throw new IllegalArgumentException("Not a FEN square: " + field);
+        }
+        return BitBoard.square(field.charAt(1) - '0', field.charAt(0) - 'a' + 1);
+    }
+
+    /**
+     * @param square a square index, or {@link BitBoard#NO_SQUARE}
+     * @return the square in algebraic notation, or "-"
+     */
+    static String formatSquare(int square) {
+        if (square == BitBoard.NO_SQUARE) {
+            return "-";
+        }
+        return new String(new char[]{(char) ('a' + (square & 7)), (char) ('1' + (square >>> 3))});
+    }
+
+    /**
+     * @param field a move counter field
+     * @param min   the smallest value allowed
+     * @return the counter
+     * @throws IllegalArgumentException if the field is not a number of at least min
+     */
+    static int parseCounter(String field, int min) {
+        int value;
+        try {
+            value = Integer.parseInt(field);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a FEN move counter: " + field, e);
+        }
+        if (value < min) {
+            throw new IllegalArgumentException("FEN move counter below " + min + ": " + field);
+        }
+        return value;
+    }
+
+    private static ChessPiece piece(char letter) {
+        int type = PIECE_LETTERS.indexOf(Character.toLowerCase(letter));
+        if (type < 0) {
+            throw new IllegalArgumentException("Unknown FEN piece: " + letter);
+        }
+        ChessGame.TeamColor color = Character.isUpperCase(letter) ? ChessGame.TeamColor.WHITE
+                : ChessGame.TeamColor.BLACK;
+        return ChessPiece.of(color, ChessPiece.PieceType.values()[type]);
+    }
+
+    private static char letter(ChessPiece piece) {
+        char letter = PIECE_LETTERS.charAt(piece.getPieceType().ordinal());
+        return piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(letter) : letter;
+    }
+}
@@ -0,0 +1,226 @@
+package chess;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A compact, versioned binary form of {@link ChessGame}, for storing games
+ * without building and parsing a JSON tree on every move.
+ * <p>
+ * Version 1 layout, multi-byte values big-endian:
+ * <pre>
+ * byte     version (1)
+ * byte     flags: bit 0 black to move, bit 1 game over, bit 2 move list follows,
+ *          bits 4-7 castling rights
+ * byte     en passant square, 0xFF if none
+ * byte     status ordinal in bits 0-1, draw reason ordinal + 1 in bits 2-3 (0 if none)
+ * 32 bytes board, one nibble per square from a1 to h8, low nibble first:
+ *          0 empty, otherwise the {@link BitBoard} piece index + 1
+ * u16      halfmove clock
+ * u16      fullmove number
+ * u16      n, then n longs: the position keys a repetition can still reach
+ * u16      m, then m packed moves as u16 without their flag bits, only if the
+ *          move list flag is set
+ * </pre>
+ * A game with no history and no move list takes 42 bytes.
+ */
+public final class GameCodec {
+    public static final int VERSION = 1;
+
+    private static final int FLAG_BLACK_TO_MOVE = 1;
+    private static final int FLAG_GAME_OVER = 1 << 1;
+    private static final int FLAG_MOVES = 1 << 2;
+    private static final int CASTLING_SHIFT = 4;
+    private static final int NO_EN_PASSANT = 0xFF;
+    private static final int BOARD_BYTES = 32;
+    private static final int HEADER_BYTES = 4 + BOARD_BYTES + 2 + 2 + 2;
+    private static final int MOVE_BYTES = 2;
+    private static final int MAX_COUNT = 0xFFFF;
+
+    private GameCodec() {
+    }
+
+    /**
+     * @param game the game to encode
+     * @return the game in binary form, without a move list
+     */
+    public static byte[] encode(ChessGame game) {
+        return encode(game, null);
+    }
+
+    /**
+     * @param game  the game to encode
+     * @param moves moves to store with the game, such as the moves that led
+     *              to it, or null for none
+     * @return the game in binary form
+     */
+    public static byte[] encode(ChessGame game, MoveList moves) {
+        ByteBuffer out = ByteBuffer.allocate(encodedSize(game, moves));
+        encode(game, moves, out);
+        return out.array();
+    }
+
+    /**
+     * Writes a game at the buffer's position, advancing it
+     *
+     * @param game  the game to encode
+     * @param moves moves to store with the game, or null for none
+     * @param out   the buffer to write to, with at least
+     *              {@link #encodedSize(ChessGame, MoveList)} bytes remaining
+     */
+    public static void encode(ChessGame game, MoveList moves, ByteBuffer out) {
+        int flags = game.castlingRights << CASTLING_SHIFT;
+        if (game.currentTurn == ChessGame.TeamColor.BLACK) {
+            flags |= FLAG_BLACK_TO_MOVE;
+        }
+        if (game.isGameOver) {
+            flags |= FLAG_GAME_OVER;
+        }
+        if (moves != null) {
+            flags |= FLAG_MOVES;
+        }
+        out.put((byte) VERSION);
+        out.put((byte) flags);
+        out.put((byte) (game.enPassantSquare == BitBoard.NO_SQUARE ? NO_EN_PASSANT : game.enPassantSquare));
+        int draw = game.drawReason == null ? 0 : game.drawReason.ordinal() + 1;
+        out.put((byte) (game.status.ordinal() | draw << 2));
+
+        BitBoard bits = game.board.getBitBoard();
+        for (int square = 0; square < 64; square += 2) {
+            out.put((byte) ((bits.pieceIndexAt(square) + 1) | (bits.pieceIndexAt(square + 1) + 1) << 4));
+        }
+
+        out.putShort((short) Math.min(game.halfmoveClock, MAX_COUNT));
+        out.putShort((short) Math.min(game.fullmoveNumber, MAX_COUNT));
+
+        int history = reachableHistory(game);
+        out.putShort((short) history);
+        for (int i = game.historySize - history; i < game.historySize; i++) {
+            out.putLong(game.positionHistory[i]);
+        }
+
+        if (moves != null) {
+            out.putShort((short) moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                out.putShort((short) Move.withoutFlags(moves.get(i)));
+            }
+        }
+    }
+
+    /**
+     * @param game  the game to encode
+     * @param moves the moves to store with it, or null for none
+     * @return the number of bytes {@link #encode(ChessGame, MoveList, ByteBuffer)} writes
+     */
+    public static int encodedSize(ChessGame game, MoveList moves) {
+        int size = HEADER_BYTES + reachableHistory(game) * Long.BYTES;
+        if (moves != null) {
+            if (moves.size() > MAX_COUNT) {
+                throw new IllegalArgumentException("Too many moves to encode: " + moves.size());
+            }
+            size += 2 + moves.size() * MOVE_BYTES;
+        }
+        return size;
+    }
+
+    /**
+     * @param data a game written by {@link #encode(ChessGame)}
+     * @return the decoded game; any move list is skipped
+     * @throws IllegalArgumentException if the data is not a game in a known version
+     */
+    public static ChessGame decode(byte[] data) {
+        return decode(ByteBuffer.wrap(data), null);
+    }
+
+    /**
+     * Reads a game at the buffer's position, advancing it past the game
+     *
+     * @param in    the buffer to read from
+     * @param moves filled with the stored moves, cleared first, if not null.
+     *              The moves come back without their flag bits.
+     * @return the decoded game
+     * @throws IllegalArgumentException if the data is not a game in a known version
+     */
+    public static ChessGame decode(ByteBuffer in, MoveList moves) {
+        try {
+            return read(in, moves);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Encoded game is truncated", e);
+        }
+    }
+
+    private static ChessGame read(ByteBuffer in, MoveList moves) {
+        int version = in.get() & 0xFF;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unknown encoded game version: " + version);
+        }
+        int flags = in.get() & 0xFF;
+        int enPassant = in.get() & 0xFF;
+        int state = in.get() & 0xFF;
+        if (enPassant != NO_EN_PASSANT && enPassant > 63 || (state >>> 2) > ChessGame.DrawReason.values().length) {
+            throw new IllegalArgumentException("Encoded game header is corrupt");
+        }
+
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square += 2) {
+            int pair = in.get() & 0xFF;
+            putPiece(board, square, pair & 0xF);
+            putPiece(board, square + 1, pair >>> 4);
+        }
+        game.board = board;
+        game.currentTurn = (flags & FLAG_BLACK_TO_MOVE) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        game.isGameOver = (flags & FLAG_GAME_OVER) != 0;
+        game.castlingRights = flags >>> CASTLING_SHIFT;
+        game.enPassantSquare = enPassant == NO_EN_PASSANT ? BitBoard.NO_SQUARE : enPassant;
+        game.status = ChessGame.GameStatus.values()[state & 0x3];
+        game.drawReason = (state >>> 2) == 0 ? null : ChessGame.DrawReason.values()[(state >>> 2) - 1];
+
+        game.halfmoveClock = in.getShort() & 0xFFFF;
+        game.fullmoveNumber = Math.max(1, in.getShort() & 0xFFFF);
+
+        int history = in.getShort() & 0xFFFF;
+        if (history > game.positionHistory.length) {
+            game.positionHistory = new long[history];
+        }
+        for (int i = 0; i < history; i++) {
+            game.positionHistory[i] = in.getLong();
+        }
+        game.historySize = history;
+
+        if (moves != null) {
+            moves.clear();
+        }
+        if ((flags & FLAG_MOVES) != 0) {
+            int count = in.getShort() & 0xFFFF;
+            for (int i = 0; i < count; i++) {
+                int move = in.getShort() & 0xFFFF;
+                if (moves != null) {
+                    moves.add(move);
+                }
+            }
+        }
+        return game;
+    }
+
+    private static void putPiece(ChessBoard board, int square, int nibble) {
+        if (nibble == 0) {
+            return;
+        }
+        if (nibble > 12) {
+            throw new IllegalArgumentException("Encoded game has an unknown piece on square " + square);
+        }
+        board.setSquare(square, ChessPiece.ofIndex(nibble - 1));
+    }
+
+    /**
+     * Only positions since the last capture or pawn move can repeat, so older
+     * keys are never needed again
+     */
+    private static int reachableHistory(ChessGame game) {
+        if (game.positionHistory == null) {
+            return 0;
+        }
+        return Math.min(Math.min(game.historySize, game.halfmoveClock), MAX_COUNT);
+    }
+}
@@ -0,0 +1,87 @@
+package chess;
+
+/**
+ * Packs a move into a single int so move generation and search can work on
+ * primitive arrays instead of {@link ChessMove} objects.
+ * <p>
+ * Layout, low bits first: 6 bits start square, 6 bits end square (both
+ * {@link BitBoard} square indexes), 3 bits promotion piece (0 for none,
+ * otherwise {@code PieceType.ordinal() + 1}), then the flag bits below. No
+ * real move packs to 0 (that would be a1 to a1), so 0 doubles as "no move".
+ */
+public final class Move {
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int EN_PASSANT = 1 << 16;
+    public static final int CASTLE = 1 << 17;
+    public static final int DOUBLE_PUSH = 1 << 18;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int PROMOTION_MASK = 0x7;
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    private Move() {
+    }
+
+    /**
+     * @param from      start square index
+     * @param to        end square index
+     * @param promotion piece a pawn promotes to, or null
+     * @param flags     any of the flag constants, ORed together
+     * @return the packed move
+     */
+    public static int encode(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        int promotionBits = promotion == null ? 0 : promotion.ordinal() + 1;
+        return from | (to << 6) | (promotionBits << PROMOTION_SHIFT) | flags;
+    }
+
+    /**
+     * Packs a ChessMove, without flags
+     */
+    public static int encode(ChessMove move) {
+        return encode(BitBoard.square(move.getStartPosition()), BitBoard.square(move.getEndPosition()),
+                move.getPromotionPiece(), 0);
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & SQUARE_MASK;
+    }
+
+    /**
+     * @return the piece a pawn promotes to, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int bits = (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+        return bits == 0 ? null : PIECE_TYPES[bits - 1];
+    }
+
+    public static boolean isPromotion(int move) {
+        return ((move >>> PROMOTION_SHIFT) & PROMOTION_MASK) != 0;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * @return the move with its flag bits cleared, for comparing moves decoded
+     * from a ChessMove against generated ones
+     */
+    public static int withoutFlags(int move) {
+        return move & ((1 << 15) - 1);
+    }
+
+    /**
+     * Unpacks a move into the public ChessMove form, using the shared
+     * position instances
+     */
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessPosition.ofSquare(from(move)), ChessPosition.ofSquare(to(move)), promotion(move));
+    }
+}
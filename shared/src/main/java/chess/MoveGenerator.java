@@ -0,0 +1,224 @@
+package chess;
+
+/**
+ * Generates strictly legal moves from a bitboard position.
+ * <p>
+ * Checkers and pinned pieces are worked out once per call from the king's
+ * square. A double check leaves only king moves; a single check restricts every
+ * other piece to capturing the checker or blocking the line to the king; a
+ * pinned piece may only move along the line through its king and pinner. King
+ * moves are tested against the enemy attacks with the king lifted off the
+ * board, so it cannot step backwards along a slider's line.
+ * <p>
+ * Castling and en passant are generated here rather than in the per-piece
+ * calculators because both depend on game state the board does not hold.
+ * <p>
+ * Moves come out as packed ints (see {@link Move}) appended to a reusable
+ * {@link MoveList}, flagged as captures, en passant, castling or double pawn
+ * pushes so callers can order or filter them without looking at the board.
+ */
+final class MoveGenerator {
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT
+    };
+
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    private static final long RANK_1 = 0xFFL;
+    private static final long RANK_8 = 0xFFL << 56;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Adds every legal move for the given team whose start square is in fromMask
+     *
+     * @param bits            the position
+     * @param us              the team to generate moves for
+     * @param castlingRights  the castling rights still available
+     * @param enPassantSquare the square a pawn may capture onto en passant, or
+     *                        {@link BitBoard#NO_SQUARE}
+     * @param fromMask        the start squares to consider, -1L for every square
+     * @param out             list the packed moves are appended to
+     */
+    static void generate(BitBoard bits, ChessGame.TeamColor us, int castlingRights, int enPassantSquare,
+                         long fromMask, MoveList out) {
+        ChessGame.TeamColor them = us == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long ours = bits.occupancy(us);
+        long theirs = bits.occupancy(them);
+        long occupied = bits.occupied();
+        int king = bits.kingSquare(us);
+
+        long checkers = 0;
+        long pinned = 0;
+        long checkMask = -1L;
+        if (king != BitBoard.NO_SQUARE) {
+            checkers = Attacks.attackersOf(bits, king, them, occupied);
+            pinned = pinnedPieces(bits, king, us, them);
+            if (Long.bitCount(checkers) == 1) {
+                checkMask = checkers | Attacks.BETWEEN[king][Long.numberOfTrailingZeros(checkers)];
+            }
+            if ((fromMask & (1L << king)) != 0) {
+                addKingMoves(bits, king, them, ours, occupied, out);
+                if (checkers == 0) {
+                    addCastlingMoves(bits, king, us, them, castlingRights, occupied, out);
+                }
+            }
+        }
+        if (Long.bitCount(checkers) > 1) {
+            return;
+        }
+
+        long movers = ours & fromMask & ~(king == BitBoard.NO_SQUARE ? 0 : 1L << king);
+        while (movers != 0) {
+            int from = Long.numberOfTrailingZeros(movers);
+            movers &= movers - 1;
+
+            long allowed = checkMask;
+            if ((pinned & (1L << from)) != 0) {
+                allowed &= Attacks.LINE[king][from];
+            }
+
+            int pieceIndex = bits.pieceIndexAt(from);
+            ChessPiece.PieceType type = PIECE_TYPES[pieceIndex % 6];
+            long targets = switch (type) {
+                case KNIGHT -> Attacks.KNIGHT[from] & ~ours;
+                case BISHOP -> Attacks.bishop(from, occupied) & ~ours;
+                case ROOK -> Attacks.rook(from, occupied) & ~ours;
+                case QUEEN -> Attacks.queen(from, occupied) & ~ours;
+                case KING -> Attacks.KING[from] & ~ours;
+                case PAWN -> pawnTargets(from, us, theirs, occupied);
+            };
+            targets &= allowed;
+
+            if (type != ChessPiece.PieceType.PAWN) {
+                addMoves(from, targets, theirs, out);
+                continue;
+            }
+
+            if (enPassantSquare != BitBoard.NO_SQUARE
+                    && (Attacks.PAWN[us.ordinal()][from] & (1L << enPassantSquare)) != 0
+                    && isEnPassantLegal(bits, from, enPassantSquare, king, us, them)) {
+                out.add(Move.encode(from, enPassantSquare, null, Move.CAPTURE | Move.EN_PASSANT));
+            }
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                int flags = (theirs & (1L << to)) != 0 ? Move.CAPTURE : 0;
+                if (((1L << to) & (RANK_1 | RANK_8)) != 0) {
+                    for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                        out.add(Move.encode(from, to, promotion, flags));
+                    }
+                } else {
+                    if (Math.abs(to - from) == 16) {
+                        flags |= Move.DOUBLE_PUSH;
+                    }
+                    out.add(Move.encode(from, to, null, flags));
+                }
+            }
+        }
+    }
+
+    private static void addMoves(int from, long targets, long theirs, MoveList out) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            out.add(Move.encode(from, to, null, (theirs & (1L << to)) != 0 ? Move.CAPTURE : 0));
+        }
+    }
+
+    private static long pawnTargets(int from, ChessGame.TeamColor us, long theirs, long occupied) {
+        long targets = Attacks.PAWN[us.ordinal()][from] & theirs;
+        long empty = ~occupied;
+        if (us == ChessGame.TeamColor.WHITE) {
+            long single = (1L << from << 8) & empty;
+            targets |= single;
+            if (from >= 8 && from < 16) {
+                targets |= (single << 8) & empty;
+            }
+        } else {
+            long single = (1L << from >>> 8) & empty;
+            targets |= single;
+            if (from >= 48 && from < 56) {
+                targets |= (single >>> 8) & empty;
+            }
+        }
+        return targets;
+    }
+
+    private static void addKingMoves(BitBoard bits, int king, ChessGame.TeamColor them, long ours, long occupied,
+                                     MoveList out) {
+        long withoutKing = occupied & ~(1L << king);
+        long theirs = bits.occupancy(them);
+        long targets = Attacks.KING[king] & ~ours;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (Attacks.attackersOf(bits, to, them, withoutKing) == 0) {
+                out.add(Move.encode(king, to, null, (theirs & (1L << to)) != 0 ? Move.CAPTURE : 0));
+            }
+        }
+    }
+
+    private static void addCastlingMoves(BitBoard bits, int king, ChessGame.TeamColor us, ChessGame.TeamColor them,
+                                         int castlingRights, long occupied, MoveList out) {
+        if (king != Castling.kingHome(us)) {
+            return;
+        }
+        long rooks = bits.pieces(us, ChessPiece.PieceType.ROOK);
+
+        if ((castlingRights & Castling.kingside(us)) != 0 && (rooks & (1L << (king + 3))) != 0
+                && (occupied & ((1L << (king + 1)) | (1L << (king + 2)))) == 0
+                && !Attacks.isAttacked(bits, king + 1, them) && !Attacks.isAttacked(bits, king + 2, them)) {
+            out.add(Move.encode(king, king + 2, null, Move.CASTLE));
+        }
+        if ((castlingRights & Castling.queenside(us)) != 0 && (rooks & (1L << (king - 4))) != 0
+                && (occupied & ((1L << (king - 1)) | (1L << (king - 2)) | (1L << (king - 3)))) == 0
+                && !Attacks.isAttacked(bits, king - 1, them) && !Attacks.isAttacked(bits, king - 2, them)) {
+            out.add(Move.encode(king, king - 2, null, Move.CASTLE));
+        }
+    }
+
+    /**
+     * En passant removes two pieces from the same rank at once, which the pin
+     * and check masks cannot describe, so the resulting position is tested
+     * directly: no enemy piece may hit the king once both pawns have left.
+     */
+    private static boolean isEnPassantLegal(BitBoard bits, int from, int to, int king,
+                                            ChessGame.TeamColor us, ChessGame.TeamColor them) {
+        if (king == BitBoard.NO_SQUARE) {
+            return true;
+        }
+        int captured = us == ChessGame.TeamColor.WHITE ? to - 8 : to + 8;
+        long occupied = (bits.occupied() & ~(1L << from) & ~(1L << captured)) | (1L << to);
+        long queens = bits.pieces(them, ChessPiece.PieceType.QUEEN);
+        return (Attacks.rook(king, occupied) & (bits.pieces(them, ChessPiece.PieceType.ROOK) | queens)) == 0
+                && (Attacks.bishop(king, occupied) & (bits.pieces(them, ChessPiece.PieceType.BISHOP) | queens)) == 0
+                && (Attacks.KNIGHT[king] & bits.pieces(them, ChessPiece.PieceType.KNIGHT)) == 0
+                && (Attacks.PAWN[us.ordinal()][king] & bits.pieces(them, ChessPiece.PieceType.PAWN)
+                & ~(1L << captured)) == 0;
+    }
+
+    /**
+     * @return the bitboard of our pieces that are the only blocker between our
+     * king and an enemy slider aimed at it
+     */
+    private static long pinnedPieces(BitBoard bits, int king, ChessGame.TeamColor us, ChessGame.TeamColor them) {
+        long queens = bits.pieces(them, ChessPiece.PieceType.QUEEN);
+        long snipers = (Attacks.rook(king, 0) & (bits.pieces(them, ChessPiece.PieceType.ROOK) | queens))
+                | (Attacks.bishop(king, 0) & (bits.pieces(them, ChessPiece.PieceType.BISHOP) | queens));
+        long occupied = bits.occupied();
+        long ours = bits.occupancy(us);
+        long pinned = 0;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.BETWEEN[king][sniper] & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & ours;
+            }
+        }
+        return pinned;
+    }
+}
@@ -0,0 +1,93 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A reusable buffer of packed {@link Move} ints. Generators append to it and
+ * callers clear it between positions, so filling it allocates nothing once the
+ * backing array has grown to fit the largest move count seen.
+ */
+public class MoveList {
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        this.moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drops every move from the given index on
+     *
+     * @param newSize the number of moves to keep
+     */
+    public void truncate(int newSize) {
+        size = newSize;
+    }
+
+    /**
+     * @return true if the list holds the move, ignoring flag bits
+     */
+    public boolean contains(int move) {
+        return indexOf(move) >= 0;
+    }
+
+    /**
+     * @return the index of the move ignoring flag bits, or -1 if absent
+     */
+    public int indexOf(int move) {
+        int target = Move.withoutFlags(move);
+        for (int i = 0; i < size; i++) {
+            if (Move.withoutFlags(moves[i]) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Unpacks every move into ChessMove form
+     *
+     * @param out collection the moves are added to
+     * @return out, for chaining
+     */
+    public <C extends Collection<ChessMove>> C toChessMoves(C out) {
+        for (int i = 0; i < size; i++) {
+            out.add(Move.toChessMove(moves[i]));
+        }
+        return out;
+    }
+}
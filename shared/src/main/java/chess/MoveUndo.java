@@ -0,0 +1,69 @@
+package chess;
+
+/**
+ * Everything needed to take back a move made with
+ * {@link ChessGame#makeMove(int, MoveUndo)}.
+ * <p>
+ * Records are meant to be reused: searches keep one per ply and pass it back in
+ * on every move instead of allocating a fresh record.
+ */
+public class MoveUndo {
+    int move;
+    ChessPiece movedPiece;
+    ChessPiece capturedPiece;
+    int captureSquare;
+    ChessGame.TeamColor previousTurn;
+    int previousCastlingRights;
+    int previousEnPassantSquare;
+    int previousHalfmoveClock;
+
+    /**
+     * @return the move this record can undo
+     */
+    public ChessMove getMove() {
+        return Move.toChessMove(move);
+    }
+
+    /**
+     * @return the packed form of the move this record can undo
+     */
+    public int getPackedMove() {
+        return move;
+    }
+
+    /**
+     * @return the piece that was captured by the move, or null if nothing was captured
+     */
+    public ChessPiece getCapturedPiece() {
+        return capturedPiece;
+    }
+
+    /**
+     * @return true if the move captured a pawn en passant
+     */
+    public boolean isEnPassant() {
+        return capturedPiece != null && captureSquare != Move.to(move);
+    }
+
+    /**
+     * @return true if the move was a king castling, which also moved a rook
+     */
+    public boolean isCastle() {
+        return movedPiece.getPieceType() == ChessPiece.PieceType.KING
+                && Math.abs(Move.to(move) - Move.from(move)) == 2;
+    }
+
+    /**
+     * @return true if the move promoted a pawn
+     */
+    public boolean isPromotion() {
+        return Move.isPromotion(move) && movedPiece.getPieceType() == ChessPiece.PieceType.PAWN;
+    }
+
+    /**
+     * @return whose turn it was before the move was made
+     */
+    public ChessGame.TeamColor getPreviousTurn() {
+        return previousTurn;
+    }
+}
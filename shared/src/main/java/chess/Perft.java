@@ -0,0 +1,73 @@
+package chess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Move path enumeration: counts the leaf nodes of the legal move tree to a fixed
+ * depth. Comparing the counts against published reference values is the
+ * standard way to prove a move generator correct, and timing the walk gives a
+ * generator throughput figure.
+ */
+public final class Perft {
+
+    private Perft() {
+    }
+
+    /**
+     * Counts the leaf nodes reachable from the game's current position
+     *
+     * @param game  the game to walk; it is returned to its starting position
+     * @param depth number of plies to walk
+     * @return number of distinct move paths of exactly the given length
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        MoveUndo[] undos = new MoveUndo[depth];
+        MoveList[] lists = new MoveList[depth];
+        for (int ply = 0; ply < depth; ply++) {
+            undos[ply] = new MoveUndo();
+            lists[ply] = new MoveList();
+        }
+        return perft(game, depth, undos, lists);
+    }
+
+    private static long perft(ChessGame game, int depth, MoveUndo[] undos, MoveList[] lists) {
+        MoveList moves = lists[depth - 1];
+        game.legalMoves(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        MoveUndo undo = undos[depth - 1];
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i), undo);
+            nodes += perft(game, depth - 1, undos, lists);
+            game.unmakeMove(undo);
+        }
+        return nodes;
+    }
+
+    /**
+     * Splits a perft count by root move, which narrows a mismatch against a
+     * reference engine down to the move whose subtree is wrong
+     *
+     * @param game  the game to walk; it is returned to its starting position
+     * @param depth number of plies to walk, at least 1
+     * @return leaf count under each legal root move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+        MoveUndo undo = new MoveUndo();
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i), undo);
+            counts.put(Move.toChessMove(moves.get(i)), perft(game, depth - 1));
+            game.unmakeMove(undo);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,209 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of per-position results, keyed by Zobrist key and
+ * held in a single {@code long[]} so millions of entries cost no objects and
+ * no garbage collection work.
+ * <p>
+ * Each entry is three longs: a check word, the bitmap of squares whose piece
+ * has at least one legal move, and a data word packing the position's status
+ * with the result of the deepest search that stored it. The check word is the
+ * key XORed with both other words. Threads read and write entries without
+ * locks; a reader that catches an entry halfway through another thread's
+ * write sees a check word that no longer matches and treats it as a miss, so
+ * the worst a race can do is lose an entry.
+ * <p>
+ * Data word layout, low bits first: 19 bits best move (packed as in
+ * {@link Move}), 16 bits score, 7 bits depth, 2 bits bound, 3 bits status.
+ */
+public final class PositionTable {
+    public static final int STATUS_UNKNOWN = 0;
+    public static final int STATUS_NORMAL = 1;
+    public static final int STATUS_CHECK = 2;
+    public static final int STATUS_CHECKMATE = 3;
+    public static final int STATUS_STALEMATE = 4;
+
+    public static final int BOUND_NONE = 0;
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_UPPER = 3;
+
+    public static final int MAX_DEPTH = 127;
+
+    private static final int LONGS_PER_ENTRY = 3;
+    private static final int DEFAULT_MEGABYTES = 16;
+
+    private static final int MOVE_BITS = 19;
+    private static final int SCORE_SHIFT = 19;
+    private static final int DEPTH_SHIFT = 35;
+    private static final int BOUND_SHIFT = 42;
+    private static final int STATUS_SHIFT = 44;
+    private static final long SEARCH_MASK = (1L << STATUS_SHIFT) - 1;
+
+    private static final PositionTable SHARED = new PositionTable(
+            Integer.getInteger("chess.positionTable.mb", DEFAULT_MEGABYTES));
+
+    private final long[] table;
+    private final int mask;
+
+    /**
+     * Creates an empty table using at most the given amount of memory
+     *
+     * @param megabytes the memory budget, at least 1
+     */
+    public PositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Position table needs at least 1 MB");
+        }
+        long entries = Long.highestOneBit(((long) megabytes << 20) / (LONGS_PER_ENTRY * Long.BYTES));
+        entries = Math.min(entries, 1 << 28);
+        this.table = new long[(int) entries * LONGS_PER_ENTRY];
+        this.mask = (int) entries - 1;
+    }
+
+    /**
+     * @return the table every game and search shares by default, sized by the
+     * {@code chess.positionTable.mb} system property (16 MB if unset)
+     */
+    public static PositionTable shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return the number of entries the table holds
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Empties the table
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+    }
+
+    /**
+     * Looks a position up
+     *
+     * @param key the position's Zobrist key
+     * @param out filled in on a hit, left alone on a miss
+     * @return true if the table holds an entry for the key
+     */
+    public boolean probe(long key, Entry out) {
+        int slot = slot(key);
+        long check = table[slot];
+        long movable = table[slot + 1];
+        long data = table[slot + 2];
+        if ((check ^ movable ^ data) != key || (movable | data) == 0) {
+            return false;
+        }
+        out.movable = movable;
+        out.data = data;
+        return true;
+    }
+
+    /**
+     * Records the status of a position and the squares that can move,
+     * keeping any search result already stored for it
+     *
+     * @param key     the position's Zobrist key
+     * @param movable bitmap of squares holding a piece with a legal move
+     * @param status  one of the STATUS constants
+     */
+    public void storeStatus(long key, long movable, int status) {
+        int slot = slot(key);
+        long data = ((long) status << STATUS_SHIFT) | (existingData(slot, key) & SEARCH_MASK);
+        write(slot, key, movable, data);
+    }
+
+    /**
+     * Records a search result for a position, keeping its status if known
+     *
+     * @param key   the position's Zobrist key
+     * @param depth the depth searched, clamped to {@link #MAX_DEPTH}
+     * @param score the score found, which must fit in 16 bits
+     * @param bound one of the BOUND constants
+     * @param move  the best move found, or {@link Move#NONE}
+     */
+    public void storeSearch(long key, int depth, int score, int bound, int move) {
+        int slot = slot(key);
+        long existing = existingData(slot, key);
+        long movable = existing == 0 ? 0 : table[slot + 1];
+        long data = (existing & ~SEARCH_MASK)
+                | (move & ((1L << MOVE_BITS) - 1))
+                | ((long) (score & 0xFFFF) << SCORE_SHIFT)
+                | ((long) Math.min(depth, MAX_DEPTH) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT);
+        write(slot, key, movable, data);
+    }
+
+    private int slot(long key) {
+        return ((int) key & mask) * LONGS_PER_ENTRY;
+    }
+
+    private long existingData(int slot, long key) {
+        long data = table[slot + 2];
+        return (table[slot] ^ table[slot + 1] ^ data) == key ? data : 0;
+    }
+
+    private void write(int slot, long key, long movable, long data) {
+        table[slot + 1] = movable;
+        table[slot + 2] = data;
+        table[slot] = key ^ movable ^ data;
+    }
+
+    /**
+     * A decoded table entry. Callers keep one and pass it to every probe, so
+     * lookups allocate nothing.
+     */
+    public static final class Entry {
+        private long movable;
+        private long data;
+
+        void set(long movable, int status) {
+            this.movable = movable;
+            this.data = (long) status << STATUS_SHIFT;
+        }
+
+        /**
+         * @return bitmap of squares holding a piece with a legal move, valid
+         * when the status is known
+         */
+        public long movable() {
+            return movable;
+        }
+
+        /**
+         * @return one of the STATUS constants
+         */
+        public int status() {
+            return (int) (data >>> STATUS_SHIFT) & 0x7;
+        }
+
+        /**
+         * @return the best move of the stored search, or {@link Move#NONE}
+         */
+        public int move() {
+            return (int) (data & ((1L << MOVE_BITS) - 1));
+        }
+
+        public int score() {
+            return (short) (data >>> SCORE_SHIFT);
+        }
+
+        public int depth() {
+            return (int) (data >>> DEPTH_SHIFT) & MAX_DEPTH;
+        }
+
+        /**
+         * @return one of the BOUND constants, {@link #BOUND_NONE} if no search
+         * result is stored
+         */
+        public int bound() {
+            return (int) (data >>> BOUND_SHIFT) & 0x3;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.PositionTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Analyses a position on several cores with Lazy SMP: every thread runs its
+ * own iterative deepening search of the same root, and they cooperate only
+ * through the shared {@link PositionTable}. Helpers skip some iterations, so
+ * at any moment they are spread across neighbouring depths and fill the table
+ * with results the main thread then finds instead of searching.
+ * <p>
+ * The calling thread runs the main search; helpers come from a fixed pool
+ * owned by the engine and are stopped as soon as the main search finishes.
+ * Several games may be analysed at once, in which case they share the pool;
+ * a helper still queued behind another game's when its main search finishes
+ * is skipped rather than waited for.
+ * <p>
+ * {@link #deterministic()} gives a single-threaded engine with a small
+ * private table that is cleared before every analysis, so the same position
+ * searched to the same depth or node budget always gives the same result.
+ */
+public class AnalysisEngine implements AutoCloseable {
+    // Small, since it is cleared before every analysis and hint searches are short
+    private static final int DETERMINISTIC_TABLE_MEGABYTES = 2;
+
+    private final int threads;
+    private final PositionTable table;
+    private final boolean clearTable;
+    private final ExecutorService helpers;
+    private final ThreadLocal<Searcher> searchers;
+
+    /**
+     * Creates an engine sharing the process-wide position table
+     *
+     * @param threads number of threads per analysis, including the caller's
+     */
+    public AnalysisEngine(int threads) {
+        this(threads, PositionTable.shared(), false);
+    }
+
+    /**
+     * @param threads number of threads per analysis, including the caller's
+     * @param table   the position table the threads share
+     */
+    public AnalysisEngine(int threads, PositionTable table) {
+        this(threads, table, false);
+    }
+
+    private AnalysisEngine(int threads, PositionTable table, boolean clearTable) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("An analysis needs at least one thread");
+        }
+        this.threads = threads;
+        this.table = table;
+        this.clearTable = clearTable;
+        this.searchers = ThreadLocal.withInitial(() -> new Searcher(table));
+        if (threads == 1) {
+            this.helpers = null;
+        } else {
+            AtomicInteger count = new AtomicInteger();
+            this.helpers = Executors.newFixedThreadPool(threads - 1, runnable -> {
+                Thread thread = new Thread(runnable, "analysis-helper-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * The engine is for one thread at a time: two analyses running at once
+     * would clear and fill its table under each other, and their results would
+     * no longer be reproducible. Give each thread its own engine.
+     *
+     * @return a single-threaded engine whose results depend only on the
+     * position and the depth or node budget, for tests and reproducible hints
+     */
+    public static AnalysisEngine deterministic() {
+        return new AnalysisEngine(1, new PositionTable(DETERMINISTIC_TABLE_MEGABYTES), true);
+    }
+
+    /**
+     * @return the number of threads each analysis uses
+     */
+    public int threads() {
+        return threads;
+    }
+
+    /**
+     * Analyses the game's current position for the side to move
+     *
+     * @param game   the game to analyse; it is copied, not modified
+     * @param limits when to stop; the node budget applies to the main thread
+     * @return the best move found, with the node count summed over all threads
+     */
+    public SearchResult analyze(ChessGame game, SearchLimits limits) {
+        if (clearTable) {
+            table.clear();
+        }
+        if (helpers == null) {
+            return searchers.get().search(game, limits);
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean abort = new AtomicBoolean();
+        SearchLimits helperLimits = new SearchLimits(SearchLimits.MAX_DEPTH, Long.MAX_VALUE, limits.maxTimeMillis());
+        List<Future<SearchResult>> running = new ArrayList<>(threads - 1);
+        List<AtomicBoolean> claims = new ArrayList<>(threads - 1);
+        for (int helper = 1; helper < threads; helper++) {
+            int number = helper;
+            // Whichever of the helper and the main thread claims it first decides whether it runs
+            AtomicBoolean claim = new AtomicBoolean();
+            claims.add(claim);
+            running.add(helpers.submit(() -> claim.compareAndSet(false, true)
+                    ? searchers.get().search(game, helperLimits, number, abort) : null));
+        }
+
+        SearchResult main;
+        try {
+            main = searchers.get().search(game, limits, 0, abort);
+        } finally {
+            abort.set(true);
+        }
+
+        long nodes = main.nodes();
+        SearchResult best = main;
+        for (int i = 0; i < running.size(); i++) {
+            Future<SearchResult> future = running.get(i);
+            if (claims.get(i).compareAndSet(false, true)) {
+                // Still queued behind other analyses; it will do nothing when it runs
+                future.cancel(false);
+                continue;
+            }
+            SearchResult result = await(future);
+            nodes += result.nodes();
+            // A helper that finished a deeper iteration has seen more
+            if (result.depth() > best.depth() && result.bestMove() != null) {
+                best = result;
+            }
+        }
+        return new SearchResult(best.bestMove(), best.score(), best.depth(), nodes, System.nanoTime() - start);
+    }
+
+    private static SearchResult await(Future<SearchResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for analysis helpers", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Analysis helper failed", e.getCause());
+        }
+    }
+
+    /**
+     * Stops the helper threads. Analyses already running finish first.
+     */
+    @Override
+    public void close() {
+        if (helpers != null) {
+            helpers.shutdown();
+        }
+    }
+}
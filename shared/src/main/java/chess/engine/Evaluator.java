@@ -0,0 +1,160 @@
+package chess.engine;
+
+import chess.BitBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Static evaluation: material plus piece-square tables, with the king's table
+ * blended between a middlegame and an endgame version by how much non-pawn
+ * material is left on the board.
+ * <p>
+ * The tables are the well known "simplified evaluation function" ones. They
+ * are written as the board is drawn, row 8 first, from white's side; a white
+ * piece on square s reads entry {@code s ^ 56} and a black piece reads entry s,
+ * which mirrors the table for black.
+ */
+public final class Evaluator {
+    private static final int[] VALUES = {0, 900, 330, 320, 500, 100};
+
+    private static final int[] PHASE_WEIGHTS = {0, 4, 1, 1, 2, 0};
+    private static final int FULL_PHASE = 24;
+
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+    };
+
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+
+    private static final int[] ROOK = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+    };
+
+    private static final int[] PAWN = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    // Indexed like BitBoard's piece boards, material folded in
+    private static final int[][] MIDDLEGAME = new int[12][64];
+    private static final int[][] ENDGAME = new int[12][64];
+
+    static {
+        int[][] tables = {KING_MIDDLEGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN};
+        for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+            int t = type.ordinal();
+            int[] endgame = type == ChessPiece.PieceType.KING ? KING_ENDGAME : tables[t];
+            for (int square = 0; square < 64; square++) {
+                int white = BitBoard.pieceIndex(ChessGame.TeamColor.WHITE, type);
+                int black = BitBoard.pieceIndex(ChessGame.TeamColor.BLACK, type);
+                MIDDLEGAME[white][square] = VALUES[t] + tables[t][square ^ 56];
+                ENDGAME[white][square] = VALUES[t] + endgame[square ^ 56];
+                MIDDLEGAME[black][square] = VALUES[t] + tables[t][square];
+                ENDGAME[black][square] = VALUES[t] + endgame[square];
+            }
+        }
+    }
+
+    private Evaluator() {
+    }
+
+    /**
+     * @return the material value of a piece type in centipawns, 0 for the king
+     */
+    public static int value(ChessPiece.PieceType type) {
+        return VALUES[type.ordinal()];
+    }
+
+    /**
+     * Scores the game's current position
+     *
+     * @param game the game to score
+     * @return the score in centipawns from the point of view of the side to
+     * move, positive when that side stands better
+     */
+    public static int evaluate(ChessGame game) {
+        BitBoard bits = game.getBoard().getBitBoard();
+        int middlegame = 0;
+        int endgame = 0;
+        int phase = 0;
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            int sign = color == ChessGame.TeamColor.WHITE ? 1 : -1;
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                int index = BitBoard.pieceIndex(color, type);
+                long pieces = bits.pieces(color, type);
+                phase += PHASE_WEIGHTS[type.ordinal()] * Long.bitCount(pieces);
+                while (pieces != 0) {
+                    int square = Long.numberOfTrailingZeros(pieces);
+                    pieces &= pieces - 1;
+                    middlegame += sign * MIDDLEGAME[index][square];
+                    endgame += sign * ENDGAME[index][square];
+                }
+            }
+        }
+        phase = Math.min(phase, FULL_PHASE);
+        int score = (middlegame * phase + endgame * (FULL_PHASE - phase)) / FULL_PHASE;
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
@@ -0,0 +1,41 @@
+package chess.engine;
+
+/**
+ * Bounds on a single search. The search stops at whichever limit it reaches
+ * first and answers with the deepest iteration it finished.
+ *
+ * @param maxDepth      deepest iteration to start, in plies
+ * @param maxNodes      nodes to visit before stopping
+ * @param maxTimeMillis wall-clock time to search for
+ */
+public record SearchLimits(int maxDepth, long maxNodes, long maxTimeMillis) {
+    public static final int MAX_DEPTH = Searcher.MAX_PLY - 1;
+
+    public SearchLimits {
+        if (maxDepth < 1 || maxNodes < 1 || maxTimeMillis < 1) {
+            throw new IllegalArgumentException("Search limits must be positive");
+        }
+        maxDepth = Math.min(maxDepth, MAX_DEPTH);
+    }
+
+    /**
+     * @return limits that stop only at the given depth
+     */
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return limits that stop only after the given number of nodes
+     */
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(MAX_DEPTH, nodes, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return limits that stop only after the given time
+     */
+    public static SearchLimits millis(long millis) {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, millis);
+    }
+}
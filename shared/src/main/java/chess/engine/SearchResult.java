@@ -0,0 +1,35 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+/**
+ * What a search found.
+ *
+ * @param bestMove     the move to play, or null if the side to move has none
+ * @param score        score of the best move in centipawns, from the point of
+ *                     view of the side to move
+ * @param depth        deepest iteration that finished
+ * @param nodes        positions visited, quiescence included
+ * @param elapsedNanos time spent searching
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long elapsedNanos) {
+
+    /**
+     * @return true if the score is a forced mate for either side
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Searcher.MATE_BOUND;
+    }
+
+    /**
+     * @return the number of moves (not plies) to the mate, positive when the
+     * side to move mates and negative when it is mated; 0 if there is no mate
+     */
+    public int mateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        int plies = Searcher.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies / 2);
+    }
+}
@@ -0,0 +1,427 @@
+package chess.engine;
+
+import chess.BitBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+import chess.MoveUndo;
+import chess.PositionTable;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Chooses a move with a negamax alpha-beta search.
+ * <p>
+ * The search deepens one ply at a time, so the best move of the last finished
+ * iteration is always ready when a limit runs out. From depth 4 on, each
+ * iteration first searches a narrow aspiration window around the previous
+ * score and widens it only if the score falls outside. Leaves are resolved
+ * by a quiescence search over captures and promotions, so the static
+ * evaluation is never taken in the middle of an exchange.
+ * <p>
+ * Every searched node is recorded in a {@link PositionTable}: a later visit
+ * to the same position at no greater depth reuses the stored score, and its
+ * stored best move is tried first otherwise. Transpositions and the previous
+ * iteration's tree make most nodes hits.
+ * <p>
+ * Moves are tried in the order: table move (or the previous best at the
+ * root), captures by most valuable victim then least valuable attacker, then
+ * the two killer moves of the ply, then everything else.
+ * <p>
+ * A searcher keeps its per-ply buffers between calls and is not thread-safe;
+ * use one per thread. It searches a copy of the game it is given, so the
+ * caller's game is never touched.
+ */
+public class Searcher {
+    public static final int MAX_PLY = 64;
+
+    static final int MATE = 30000;
+    static final int MATE_BOUND = MATE - MAX_PLY;
+    static final int INFINITY = 32000;
+
+    private static final int ASPIRATION_DEPTH = 4;
+    private static final int ASPIRATION_WINDOW = 35;
+    private static final int TIME_CHECK_MASK = 1023;
+
+    private static final int PREVIOUS_BEST_SCORE = 1_000_000;
+    private static final int CAPTURE_SCORE = 100_000;
+    private static final int KILLER_SCORE = 90_000;
+
+    // Lazy SMP depth skipping: helper i leaves out some iterations so that the
+    // helpers spread over neighbouring depths instead of all searching the same one
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    private static final int[] VALUE_BY_INDEX = new int[12];
+
+    static {
+        for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                VALUE_BY_INDEX[BitBoard.pieceIndex(color, type)] = Evaluator.value(type);
+            }
+        }
+    }
+
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    private final int[][] orderScores = new int[MAX_PLY + 1][];
+    private final MoveUndo[] undos = new MoveUndo[MAX_PLY + 1];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final PositionTable table;
+    private final PositionTable.Entry entry = new PositionTable.Entry();
+
+    private ChessGame game;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private int rootBest;
+    private int previousBest;
+    private boolean stopped;
+    private volatile AtomicBoolean abort = new AtomicBoolean();
+
+    /**
+     * Creates a searcher using the shared position table
+     */
+    public Searcher() {
+        this(PositionTable.shared());
+    }
+
+    /**
+     * @param table the position table to read and record results in
+     */
+    public Searcher(PositionTable table) {
+        this.table = table;
+        for (int ply = 0; ply <= MAX_PLY; ply++) {
+            moveLists[ply] = new MoveList();
+            orderScores[ply] = new int[256];
+            undos[ply] = new MoveUndo();
+        }
+    }
+
+    /**
+     * Searches the game's current position for the side to move
+     *
+     * @param position the game to search; it is copied, not modified
+     * @param limits   when to stop
+     * @return the best move found and its score
+     */
+    public SearchResult search(ChessGame position, SearchLimits limits) {
+        return search(position, limits, 0, new AtomicBoolean());
+    }
+
+    /**
+     * Searches as one of several threads sharing a position table
+     *
+     * @param helper 0 for the main thread, otherwise the helper's number,
+     *               which picks the iterations it skips
+     * @param abort  flag that stops the search once set, shared by all threads
+     *               of the same analysis
+     */
+    SearchResult search(ChessGame position, SearchLimits limits, int helper, AtomicBoolean abort) {
+        long start = System.nanoTime();
+        this.abort = abort;
+        game = new ChessGame(position);
+        nodes = 0;
+        nodeLimit = limits.maxNodes();
+        deadline = limits.maxTimeMillis() >= Long.MAX_VALUE / 1_000_000
+                ? Long.MAX_VALUE : start + limits.maxTimeMillis() * 1_000_000;
+        stopped = false;
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = Move.NONE;
+            plyKillers[1] = Move.NONE;
+        }
+
+        MoveList rootMoves = new MoveList();
+        game.legalMoves(rootMoves);
+        if (rootMoves.isEmpty()) {
+            int score = game.isInCheck(game.getTeamTurn()) ? -MATE : 0;
+            return new SearchResult(null, score, 0, 0, System.nanoTime() - start);
+        }
+
+        int bestMove = rootMoves.get(0);
+        int bestScore = 0;
+        int completedDepth = 0;
+        previousBest = Move.NONE;
+        for (int depth = 1; depth <= limits.maxDepth(); depth++) {
+            if (helper > 0 && depth > 1 && skipsDepth(helper, depth)) {
+                continue;
+            }
+            rootBest = Move.NONE;
+            int score = depth < ASPIRATION_DEPTH ? negamax(depth, -INFINITY, INFINITY, 0) : aspiration(depth, bestScore);
+            if (stopped) {
+                break;
+            }
+            bestMove = rootBest;
+            bestScore = score;
+            completedDepth = depth;
+            previousBest = rootBest;
+            if (Math.abs(score) >= MATE_BOUND && MATE - Math.abs(score) <= depth) {
+                break;
+            }
+        }
+        return new SearchResult(Move.toChessMove(bestMove), bestScore, completedDepth, nodes,
+                System.nanoTime() - start);
+    }
+
+    private static boolean skipsDepth(int helper, int depth) {
+        int i = (helper - 1) % SKIP_SIZE.length;
+        return ((depth + SKIP_PHASE[i]) / SKIP_SIZE[i]) % 2 != 0;
+    }
+
+    /**
+     * Asks a running search to stop within the next thousand or so nodes; it
+     * answers with the last iteration it finished. Safe to call from another
+     * thread.
+     */
+    public void stop() {
+        abort.set(true);
+    }
+
+    private int aspiration(int depth, int previousScore) {
+        int delta = ASPIRATION_WINDOW;
+        int alpha = Math.max(previousScore - delta, -INFINITY);
+        int beta = Math.min(previousScore + delta, INFINITY);
+        while (true) {
+            int score = negamax(depth, alpha, beta, 0);
+            if (stopped) {
+                return score;
+            }
+            if (score <= alpha) {
+                alpha = Math.max(score - delta, -INFINITY);
+            } else if (score >= beta) {
+                beta = Math.min(score + delta, INFINITY);
+            } else {
+                return score;
+            }
+            delta *= 2;
+        }
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        if (ply > 0) {
+            if (game.getHalfmoveClock() >= 100 || game.isRepetition() || game.isInsufficientMaterial()) {
+                return 0;
+            }
+            // A mate found closer to the root already beats anything deeper
+            alpha = Math.max(alpha, -MATE + ply);
+            beta = Math.min(beta, MATE - ply - 1);
+            if (alpha >= beta) {
+                return alpha;
+            }
+        }
+
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        if (inCheck) {
+            depth++;
+        }
+        if (depth <= 0) {
+            return quiesce(alpha, beta, ply);
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluator.evaluate(game);
+        }
+        if (countNode()) {
+            return 0;
+        }
+
+        long key = game.getZobristKey();
+        int tableMove = Move.NONE;
+        if (table.probe(key, entry) && entry.bound() != PositionTable.BOUND_NONE) {
+            tableMove = entry.move();
+            if (ply > 0 && entry.depth() >= depth) {
+                int score = fromTable(entry.score(), ply);
+                int bound = entry.bound();
+                if (bound == PositionTable.BOUND_EXACT
+                        || (bound == PositionTable.BOUND_LOWER && score >= beta)
+                        || (bound == PositionTable.BOUND_UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        game.legalMoves(moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(moves, ply, ply == 0 && previousBest != Move.NONE ? previousBest : tableMove);
+
+        MoveUndo undo = undos[ply];
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = nextMove(moves, ply, i);
+            game.makeMove(move, undo);
+            int score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+            game.unmakeMove(undo);
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (ply == 0) {
+                        rootBest = move;
+                    }
+                    if (alpha >= beta) {
+                        if (!Move.isCapture(move) && killers[ply][0] != move) {
+                            killers[ply][1] = killers[ply][0];
+                            killers[ply][0] = move;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? PositionTable.BOUND_LOWER
+                : best > originalAlpha ? PositionTable.BOUND_EXACT : PositionTable.BOUND_UPPER;
+        table.storeSearch(key, depth, toTable(best, ply), bound, bestMove);
+        return best;
+    }
+
+    /**
+     * Mate scores count plies from the root, but a table entry can be reached
+     * at any ply, so they are stored relative to the entry's own position
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+        return score <= -MATE_BOUND ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+        return score <= -MATE_BOUND ? score + ply : score;
+    }
+
+    private int quiesce(int alpha, int beta, int ply) {
+        if (countNode()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluator.evaluate(game);
+        }
+
+        // In check every evasion has to be looked at, or a mate would be
+        // mistaken for a quiet position
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        MoveList moves = moveLists[ply];
+        int best;
+        if (inCheck) {
+            game.legalMoves(moves);
+            if (moves.isEmpty()) {
+                return -MATE + ply;
+            }
+            best = -INFINITY;
+        } else {
+            best = Evaluator.evaluate(game);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+            game.legalCaptures(moves);
+        }
+        scoreMoves(moves, ply, Move.NONE);
+
+        MoveUndo undo = undos[ply];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = nextMove(moves, ply, i);
+            game.makeMove(move, undo);
+            int score = -quiesce(-beta, -alpha, ply + 1);
+            game.unmakeMove(undo);
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Counts a node and checks the limits, polling the clock and the abort
+     * flag only every 1024 nodes since reading them costs more than visiting
+     * a node
+     *
+     * @return true if the search has to stop
+     */
+    private boolean countNode() {
+        nodes++;
+        if (nodes >= nodeLimit || ((nodes & TIME_CHECK_MASK) == 0
+                && (System.nanoTime() - deadline > 0 || abort.get()))) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    private void scoreMoves(MoveList moves, int ply, int previous) {
+        int[] scores = orderScores[ply];
+        if (scores.length < moves.size()) {
+            scores = new int[moves.size()];
+            orderScores[ply] = scores;
+        }
+        BitBoard bits = game.getBoard().getBitBoard();
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score = 0;
+            if (Move.withoutFlags(move) == Move.withoutFlags(previous)) {
+                score = PREVIOUS_BEST_SCORE;
+            } else if (Move.isCapture(move) || Move.isPromotion(move)) {
+                int victim = bits.pieceIndexAt(Move.to(move));
+                int victimValue = victim < 0 ? Evaluator.value(ChessPiece.PieceType.PAWN) : VALUE_BY_INDEX[victim];
+                int attackerValue = VALUE_BY_INDEX[bits.pieceIndexAt(Move.from(move))];
+                score = CAPTURE_SCORE + victimValue * 10 - attackerValue / 10;
+                ChessPiece.PieceType promotion = Move.promotion(move);
+                if (promotion != null) {
+                    score += Evaluator.value(promotion);
+                    if (!Move.isCapture(move)) {
+                        score -= victimValue * 10;
+                    }
+                }
+            } else if (move == killers[ply][0]) {
+                score = KILLER_SCORE;
+            } else if (move == killers[ply][1]) {
+                score = KILLER_SCORE - 1;
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Selection sort one step at a time: swaps the best remaining move into
+     * slot i. Most nodes cut off after a move or two, so sorting the whole
+     * list up front would be wasted work.
+     */
+    private int nextMove(MoveList moves, int ply, int i) {
+        int[] scores = orderScores[ply];
+        int best = i;
+        for (int j = i + 1; j < moves.size(); j++) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        if (best != i) {
+            int move = moves.get(best);
+            moves.set(best, moves.get(i));
+            moves.set(i, move);
+            int score = scores[best];
+            scores[best] = scores[i];
+            scores[i] = score;
+        }
+        return moves.get(i);
+    }
+}
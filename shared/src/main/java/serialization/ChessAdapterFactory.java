@@ -0,0 +1,54 @@
+package serialization;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * Hands Gson the compact adapters for chess types. Each adapter gets the
+ * reflective adapter Gson would otherwise have used, so it can still read
+ * the old form.
+ */
+final class ChessAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if (raw == ChessBoard.class) {
+            TypeAdapter<ChessBoard> reflective = gson.getDelegateAdapter(this, TypeToken.get(ChessBoard.class));
+            return (TypeAdapter<T>) new ChessBoardAdapter(reflective);
+        }
+        if (raw == ChessMove.class) {
+            TypeAdapter<ChessMove> reflective = gson.getDelegateAdapter(this, TypeToken.get(ChessMove.class));
+            return (TypeAdapter<T>) new ChessMoveAdapter(reflective);
+        }
+        if (raw == ChessGame.class) {
+            TypeAdapter<ChessGame> reflective = gson.getDelegateAdapter(this, TypeToken.get(ChessGame.class));
+            return (TypeAdapter<T>) new ChessGameAdapter(reflective);
+        }
+        return null;
+    }
+
+    /**
+     * Reads a string and parses it, reporting bad text as a Gson parse error
+     * with the place it was found
+     */
+    static <T> T parse(JsonReader in, Function<String, T> parser) throws IOException {
+        String text = in.nextString();
+        try {
+            return parser.apply(text);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(e.getMessage() + " at " + in.getPath(), e);
+        }
+    }
+}
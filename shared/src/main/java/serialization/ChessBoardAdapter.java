@@ -0,0 +1,44 @@
+package serialization;
+
+import chess.ChessBoard;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a board as its FEN piece placement, such as
+ * "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR". Boards in Gson's reflective
+ * form are still read, through the delegate.
+ */
+final class ChessBoardAdapter extends TypeAdapter<ChessBoard> {
+    private final TypeAdapter<ChessBoard> reflective;
+
+    ChessBoardAdapter(TypeAdapter<ChessBoard> reflective) {
+        this.reflective = reflective;
+    }
+
+    @Override
+    public void write(JsonWriter out, ChessBoard board) throws IOException {
+        if (board == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(board.toFen());
+    }
+
+    @Override
+    public ChessBoard read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BEGIN_OBJECT) {
+            return reflective.read(in);
+        }
+        return ChessAdapterFactory.parse(in, ChessBoard::fromFen);
+    }
+}
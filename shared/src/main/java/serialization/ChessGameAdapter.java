@@ -0,0 +1,83 @@
+package serialization;
+
+import chess.ChessGame;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a game as its FEN position plus how it stands:
+ * <pre>
+ * {"fen":"rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1","status":"NORMAL","gameOver":false}
+ * </pre>
+ * with a "drawReason" field once the game is drawn. The repetition history is
+ * not carried, so a game read back only detects repetitions from that point
+ * on; storage that needs it uses {@link chess.GameCodec}. The status is
+ * trusted on read, so no legal moves are generated; it is only worked out
+ * again when the field is missing.
+ * <p>
+ * Games in Gson's reflective form, as older servers stored them, are still
+ * read through the delegate.
+ */
+final class ChessGameAdapter extends TypeAdapter<ChessGame> {
+    private final TypeAdapter<ChessGame> reflective;
+
+    ChessGameAdapter(TypeAdapter<ChessGame> reflective) {
+        this.reflective = reflective;
+    }
+
+    @Override
+    public void write(JsonWriter out, ChessGame game) throws IOException {
+        if (game == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("fen").value(game.toFen());
+        out.name("status").value(game.getStatus().name());
+        out.name("gameOver").value(game.isGameOver());
+        if (game.getDrawReason() != null) {
+            out.name("drawReason").value(game.getDrawReason().name());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public ChessGame read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        // The compact form is four small fields, so reading it as a tree costs
+        // little and lets the reflective form be told apart
+        JsonObject object = JsonParser.parseReader(in).getAsJsonObject();
+        JsonElement fen = object.get("fen");
+        if (fen == null) {
+            return reflective.fromJsonTree(object);
+        }
+        try {
+            JsonElement status = object.get("status");
+            ChessGame game = status == null || status.isJsonNull()
+                    ? ChessGame.fromFen(fen.getAsString())
+                    : ChessGame.fromFen(fen.getAsString(), ChessGame.GameStatus.valueOf(status.getAsString()));
+            JsonElement drawReason = object.get("drawReason");
+            if (drawReason != null && !drawReason.isJsonNull()) {
+                game.setDrawReason(ChessGame.DrawReason.valueOf(drawReason.getAsString()));
+            }
+            JsonElement gameOver = object.get("gameOver");
+            game.setGameOver(gameOver != null && !gameOver.isJsonNull() ? gameOver.getAsBoolean()
+                    : game.getDrawReason() != null || game.getStatus() == ChessGame.GameStatus.CHECKMATE
+                    || game.getStatus() == ChessGame.GameStatus.STALEMATE);
+            return game;
+        } catch (IllegalArgumentException | IllegalStateException | UnsupportedOperationException e) {
+            throw new JsonParseException("Bad chess game at " + in.getPath() + ": " + e.getMessage(), e);
+        }
+    }
+}
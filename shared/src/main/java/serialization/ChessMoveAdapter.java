@@ -0,0 +1,44 @@
+package serialization;
+
+import chess.ChessMove;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a move as a UCI string, such as "e2e4" or "e7e8q". Moves in Gson's
+ * reflective form, as sent by older clients, are still read through the
+ * delegate.
+ */
+final class ChessMoveAdapter extends TypeAdapter<ChessMove> {
+    private final TypeAdapter<ChessMove> reflective;
+
+    ChessMoveAdapter(TypeAdapter<ChessMove> reflective) {
+        this.reflective = reflective;
+    }
+
+    @Override
+    public void write(JsonWriter out, ChessMove move) throws IOException {
+        if (move == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(move.toUci());
+    }
+
+    @Override
+    public ChessMove read(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BEGIN_OBJECT) {
+            return reflective.read(in);
+        }
+        return ChessAdapterFactory.parse(in, ChessMove::fromUci);
+    }
+}
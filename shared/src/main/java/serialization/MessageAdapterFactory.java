@@ -0,0 +1,41 @@
+package serialization;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import websocket.commands.MakeMove;
+import websocket.commands.UserGameCommand;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.Notification;
+import websocket.messages.ServerMessage;
+
+import java.util.Map;
+
+/**
+ * Reads WebSocket commands and server messages as the subclass their type
+ * field names: a MAKE_MOVE command comes back as a {@link MakeMove}, and each
+ * server message type as its own class.
+ */
+final class MessageAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if (raw == ServerMessage.class) {
+            return (TypeAdapter<T>) new TaggedAdapter<>(gson, ServerMessage.class,
+                    gson.getDelegateAdapter(this, TypeToken.get(ServerMessage.class)), "serverMessageType",
+                    Map.of(ServerMessage.ServerMessageType.LOAD_GAME.name(), gson.getAdapter(LoadGameMessage.class),
+                            ServerMessage.ServerMessageType.ERROR.name(), gson.getAdapter(ErrorMessage.class),
+                            ServerMessage.ServerMessageType.NOTIFICATION.name(), gson.getAdapter(Notification.class)));
+        }
+        if (raw == UserGameCommand.class) {
+            return (TypeAdapter<T>) new TaggedAdapter<>(gson, UserGameCommand.class,
+                    gson.getDelegateAdapter(this, TypeToken.get(UserGameCommand.class)), "commandType",
+                    Map.of(UserGameCommand.CommandType.MAKE_MOVE.name(), gson.getAdapter(MakeMove.class)));
+        }
+        return null;
+    }
+}
@@ -0,0 +1,76 @@
+package serialization;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import created.CreatedStuff;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import websocket.commands.MakeMove;
+import websocket.commands.UserGameCommand;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.Notification;
+import websocket.messages.ServerMessage;
+
+/**
+ * The Gson the server, client and DAOs share. It writes chess types compactly
+ * instead of reflecting over their fields: boards as FEN placements, moves as
+ * UCI strings and games as a FEN position plus status. Games, boards and
+ * moves in the old reflective form are still read, so older clients and
+ * stored rows keep working. Commands and server messages are read as the
+ * subclass their type field names.
+ * <p>
+ * Gson is thread-safe and caches the adapter it builds for each type, so one
+ * instance serves every caller. {@link #warm()} builds those adapters up
+ * front.
+ */
+public final class Serialization {
+    private static final Gson GSON = builder().create();
+
+    // Every type sent over HTTP or the WebSocket, or stored by a DAO
+    private static final Class<?>[] WIRE_TYPES = {
+            AuthData.class, UserData.class, GameData.class, CreatedStuff.CreateGameRequest.class,
+            CreatedStuff.JoinGameRequest.class, CreatedStuff.GamesResponse.class, UserGameCommand.class,
+            MakeMove.class, ServerMessage.class, LoadGameMessage.class, ErrorMessage.class, Notification.class,
+    };
+
+    private Serialization() {
+    }
+
+    /**
+     * @return the shared Gson, with every chess and message adapter registered
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    /**
+     * @return a builder with every chess and message adapter registered, for
+     * callers that need further settings on their own instance
+     */
+    public static GsonBuilder builder() {
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(new ChessAdapterFactory())
+                .registerTypeAdapterFactory(new MessageAdapterFactory());
+    }
+
+    /**
+     * Builds the shared Gson's adapters for every wire type and round trips a
+     * game, so the reflection, class loading and chess tables the first
+     * messages need are ready before any arrive. Call once at startup.
+     */
+    public static void warm() {
+        for (Class<?> type : WIRE_TYPES) {
+            GSON.getAdapter(type);
+        }
+        GameData game = new GameData(0, "warm up", new ChessGame());
+        GSON.fromJson(GSON.toJson(new LoadGameMessage(game)), ServerMessage.class);
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        GSON.fromJson(GSON.toJson(new MakeMove(UserGameCommand.CommandType.MAKE_MOVE, "", 0, move)),
+                UserGameCommand.class);
+    }
+}
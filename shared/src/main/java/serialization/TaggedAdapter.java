@@ -0,0 +1,65 @@
+package serialization;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reads a message base class as the subclass its type field names, so a
+ * handler can switch on the object it gets back instead of parsing the text a
+ * second time. Values are written with the adapter for their runtime class.
+ *
+ * @param <T> the message base class
+ */
+final class TaggedAdapter<T> extends TypeAdapter<T> {
+    private final Gson gson;
+    private final Class<T> baseClass;
+    private final TypeAdapter<T> base;
+    private final String tagField;
+    private final Map<String, TypeAdapter<? extends T>> subtypes;
+
+    /**
+     * @param gson      the Gson instance, for writing subclasses
+     * @param baseClass the message base class
+     * @param base      the adapter for the base class itself
+     * @param tagField  the field holding the message type
+     * @param subtypes  the adapter to read each message type with; other types
+     *                  are read as the base class
+     */
+    TaggedAdapter(Gson gson, Class<T> baseClass, TypeAdapter<T> base, String tagField,
+                  Map<String, TypeAdapter<? extends T>> subtypes) {
+        this.gson = gson;
+        this.baseClass = baseClass;
+        this.base = base;
+        this.tagField = tagField;
+        this.subtypes = subtypes;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void write(JsonWriter out, T value) throws IOException {
+        if (value == null || value.getClass() == baseClass) {
+            base.write(out, value);
+            return;
+        }
+        ((TypeAdapter<T>) gson.getAdapter(value.getClass())).write(out, value);
+    }
+
+    @Override
+    public T read(JsonReader in) throws IOException {
+        JsonElement tree = JsonParser.parseReader(in);
+        if (tree.isJsonNull()) {
+            return null;
+        }
+        JsonElement tag = tree.isJsonObject() ? tree.getAsJsonObject().get(tagField) : null;
+        TypeAdapter<? extends T> adapter = tag == null || tag.isJsonNull() ? base
+                : subtypes.getOrDefault(tag.getAsString(), base);
+        return adapter.fromJsonTree(tree);
+    }
+}
@@ -0,0 +1,27 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+public class AttacksTests {
+
+    @Test
+    @DisplayName("Magic lookups match the ray walk")
+    public void magicsMatchRayWalk() {
+        SplittableRandom random = new SplittableRandom(240);
+        for (int square = 0; square < 64; square++) {
+            for (int trial = 0; trial < 500; trial++) {
+                // Sparse and dense boards both, since blockers near the slider
+                // and blockers far away take different table slots
+                long occupied = trial % 2 == 0 ? random.nextLong() : random.nextLong() & random.nextLong();
+                Assertions.assertEquals(Attacks.walkRook(square, occupied), Attacks.rook(square, occupied),
+                        "Rook on " + square);
+                Assertions.assertEquals(Attacks.walkBishop(square, occupied), Attacks.bishop(square, occupied),
+                        "Bishop on " + square);
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static passoff.chess.TestUtilities.loadBoard;
+
+public class ChessGameTests {
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    @Test
+    @DisplayName("Zobrist key survives make and unmake")
+    public void zobristMakeUnmake() {
+        ChessGame game = new ChessGame();
+        long before = game.getZobristKey();
+        MoveUndo undo = new MoveUndo();
+
+        game.makeMove(move(2, 5, 4, 5), undo);
+        Assertions.assertNotEquals(before, game.getZobristKey());
+
+        game.unmakeMove(undo);
+        Assertions.assertEquals(before, game.getZobristKey());
+    }
+
+    @Test
+    @DisplayName("Transposed move orders reach the same Zobrist key")
+    public void zobristTransposition() throws InvalidMoveException {
+        ChessGame first = new ChessGame();
+        first.makeMove(move(1, 7, 3, 6));
+        first.makeMove(move(8, 7, 6, 6));
+        first.makeMove(move(1, 2, 3, 3));
+
+        ChessGame second = new ChessGame();
+        second.makeMove(move(1, 2, 3, 3));
+        second.makeMove(move(8, 7, 6, 6));
+        second.makeMove(move(1, 7, 3, 6));
+
+        Assertions.assertEquals(first.getZobristKey(), second.getZobristKey());
+        Assertions.assertEquals(first.getBoard().hashCode(), second.getBoard().hashCode());
+    }
+
+    @Test
+    @DisplayName("Side to move changes the Zobrist key")
+    public void zobristSideToMove() {
+        ChessGame game = new ChessGame();
+        long white = game.getZobristKey();
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertNotEquals(white, game.getZobristKey());
+    }
+
+    @Test
+    @DisplayName("Threefold repetition ends the game")
+    public void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (int i = 0; i < 2; i++) {
+            game.makeMove(move(1, 7, 3, 6));
+            game.makeMove(move(8, 7, 6, 6));
+            game.makeMove(move(3, 6, 1, 7));
+            Assertions.assertFalse(game.isGameOver());
+            game.makeMove(move(6, 6, 8, 7));
+        }
+
+        Assertions.assertTrue(game.isThreefoldRepetition());
+        Assertions.assertTrue(game.isGameOver());
+        Assertions.assertEquals(ChessGame.DrawReason.THREEFOLD_REPETITION, game.getDrawReason());
+    }
+
+    @Test
+    @DisplayName("Fifty moves without a capture or pawn move end the game")
+    public void fiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.setBoard(loadBoard("""
+                |r|n|b|q|k|b|n|r|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |R|N|B|Q|K|B|N|R|
+                """));
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+
+        // Always play the first quiet move that reaches a new position, so the
+        // game never repeats and only the clock can end it
+        Set<Long> seen = new HashSet<>();
+        seen.add(game.getZobristKey());
+        MoveUndo undo = new MoveUndo();
+        for (int ply = 0; ply < 100; ply++) {
+            Assertions.assertFalse(game.isGameOver(), "Game ended early at ply " + ply);
+            ChessMove next = null;
+            for (ChessMove candidate : game.legalMoves()) {
+                if (game.getBoard().getPiece(candidate.getEndPosition()) != null) {
+                    continue;
+                }
+                game.makeMove(candidate, undo);
+                boolean fresh = !seen.contains(game.getZobristKey());
+                game.unmakeMove(undo);
+                if (fresh) {
+                    next = candidate;
+                    break;
+                }
+            }
+            Assertions.assertNotNull(next, "No fresh quiet move at ply " + ply);
+            game.makeMove(next);
+            seen.add(game.getZobristKey());
+        }
+
+        Assertions.assertEquals(100, game.getHalfmoveClock());
+        Assertions.assertTrue(game.isGameOver());
+        Assertions.assertEquals(ChessGame.DrawReason.FIFTY_MOVE_RULE, game.getDrawReason());
+    }
+
+    @Test
+    @DisplayName("Mate on the hundredth half-move is not a draw")
+    public void mateBeatsFiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 99 60");
+        game.makeMove(move(1, 1, 8, 1));
+        Assertions.assertEquals(100, game.getHalfmoveClock());
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, game.getStatus());
+        Assertions.assertTrue(game.isGameOver());
+        Assertions.assertNull(game.getDrawReason());
+    }
+
+    @Test
+    @DisplayName("Insufficient material")
+    public void insufficientMaterial() {
+        ChessGame game = new ChessGame();
+        game.setBoard(loadBoard("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | |B| |K| | | |
+                """));
+        Assertions.assertTrue(game.isInsufficientMaterial(), "King and bishop cannot mate");
+
+        game.getBoard().addPiece(new ChessPosition(8, 3), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        Assertions.assertFalse(game.isInsufficientMaterial(), "Bishops on opposite colours can mate");
+
+        game.getBoard().addPiece(new ChessPosition(8, 3), null);
+        game.getBoard().addPiece(new ChessPosition(8, 6), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        Assertions.assertTrue(game.isInsufficientMaterial(), "Bishops on the same colour cannot mate");
+
+        game.getBoard().addPiece(new ChessPosition(2, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        Assertions.assertFalse(game.isInsufficientMaterial(), "A pawn can still promote");
+    }
+
+    @Test
+    @DisplayName("Cached check state follows the board")
+    public void attackCacheFollowsBoard() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        long whiteAttacks = game.getAttackedSquares(ChessGame.TeamColor.WHITE);
+        Assertions.assertEquals(0xFF_0000L, whiteAttacks & 0xFF_0000L, "Pawns cover the third rank");
+        Assertions.assertFalse(game.isInCheck(ChessGame.TeamColor.BLACK));
+
+        // Fool's mate: the cache has to notice each move
+        game.makeMove(move(2, 6, 3, 6));
+        game.makeMove(move(7, 5, 5, 5));
+        game.makeMove(move(2, 7, 4, 7));
+        Assertions.assertFalse(game.isInCheck(ChessGame.TeamColor.WHITE));
+        game.makeMove(move(8, 4, 4, 8));
+        Assertions.assertTrue(game.isInCheck(ChessGame.TeamColor.WHITE));
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.WHITE));
+
+        // ...and edits made straight to the board
+        game.getBoard().addPiece(new ChessPosition(4, 8), null);
+        Assertions.assertFalse(game.isInCheck(ChessGame.TeamColor.WHITE));
+
+        game.setBoard(new ChessBoard());
+        Assertions.assertFalse(game.isInCheck(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(0, game.getAttackedSquares(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Status is computed by the move and serialized")
+    public void statusAfterMove() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(ChessGame.GameStatus.NORMAL, game.getStatus());
+
+        game.makeMove(move(2, 6, 3, 6));
+        game.makeMove(move(7, 5, 5, 5));
+        game.makeMove(move(2, 7, 4, 7));
+        game.makeMove(move(8, 4, 4, 8));
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, game.getStatus());
+        Assertions.assertTrue(game.isGameOver());
+
+        ChessGame copy = new Gson().fromJson(new Gson().toJson(game), ChessGame.class);
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, copy.getStatus());
+
+        game.setBoard(loadBoard("""
+                | | | | | | | |k|
+                | | | | | |Q| | |
+                | | | | | | |K| |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """));
+        Assertions.assertEquals(ChessGame.GameStatus.NORMAL, game.getStatus(), "White to move");
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals(ChessGame.GameStatus.STALEMATE, game.getStatus());
+    }
+
+    @Test
+    @DisplayName("FEN follows the moves played")
+    public void fenAfterMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", game.toFen());
+
+        game.makeMove(move(2, 5, 4, 5));
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", game.toFen());
+        game.makeMove(move(7, 3, 5, 3));
+        game.makeMove(move(1, 7, 3, 6));
+        Assertions.assertEquals("rnbqkbnr/pp1ppppp/8/2p5/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2", game.toFen());
+        Assertions.assertEquals(3, game.getPly());
+
+        ChessGame copy = ChessGame.fromFen(game.toFen());
+        Assertions.assertEquals(game.getBoard(), copy.getBoard());
+        Assertions.assertEquals(game.getZobristKey(), copy.getZobristKey());
+        Assertions.assertEquals(2, copy.getFullmoveNumber());
+        Assertions.assertEquals(1, copy.getHalfmoveClock());
+    }
+
+    @Test
+    @DisplayName("FEN round trips")
+    public void fenRoundTrip() {
+        String[] positions = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                "8/8/8/2k5/3Pp3/8/8/4K3 b - d3 0 41",
+        };
+        for (String fen : positions) {
+            Assertions.assertEquals(fen, ChessGame.fromFen(fen).toFen());
+            Assertions.assertEquals(fen.substring(0, fen.indexOf(' ')), ChessBoard.fromFen(fen).toFen());
+        }
+        ChessGame game = ChessGame.fromFen("8/8/8/2k5/3Pp3/8/8/4K3 b - d3");
+        Assertions.assertEquals(new ChessPosition(3, 4), game.getEnPassantPosition());
+        Assertions.assertEquals(1, game.getFullmoveNumber());
+        Assertions.assertFalse(ChessGame.fromFen("8/8/8/8/8/8/8/4K2R w KQ - 0 1").canCastleQueenside(
+                ChessGame.TeamColor.WHITE), "No rook to castle with");
+    }
+
+    @Test
+    @DisplayName("Malformed FEN is rejected")
+    public void fenRejected() {
+        String[] malformed = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/ppppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnx/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkx - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - -1 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 0",
+        };
+        for (String fen : malformed) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen), fen);
+        }
+    }
+}
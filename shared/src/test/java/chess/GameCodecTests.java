@@ -0,0 +1,86 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class GameCodecTests {
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    @Test
+    @DisplayName("Encoded games decode to the same position")
+    public void roundTrip() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(42, GameCodec.encode(game).length);
+
+        game.makeMove(move(2, 5, 4, 5));
+        game.makeMove(move(8, 7, 6, 6));
+        game.makeMove(move(1, 7, 3, 6));
+        ChessGame copy = GameCodec.decode(GameCodec.encode(game));
+        Assertions.assertEquals(game.toFen(), copy.toFen());
+        Assertions.assertEquals(game.getZobristKey(), copy.getZobristKey());
+        Assertions.assertEquals(game.getStatus(), copy.getStatus());
+
+        ChessGame kiwipete = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b Kq - 3 17");
+        Assertions.assertEquals(kiwipete.toFen(), GameCodec.decode(GameCodec.encode(kiwipete)).toFen());
+    }
+
+    @Test
+    @DisplayName("Repetition history survives encoding")
+    public void repetitionHistory() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessMove[] shuffle = {move(1, 7, 3, 6), move(8, 7, 6, 6), move(3, 6, 1, 7), move(6, 6, 8, 7)};
+        for (ChessMove m : shuffle) {
+            game.makeMove(m);
+        }
+        game.makeMove(shuffle[0]);
+        game.makeMove(shuffle[1]);
+        game.makeMove(shuffle[2]);
+
+        ChessGame copy = GameCodec.decode(GameCodec.encode(game));
+        copy.makeMove(shuffle[3]);
+        Assertions.assertTrue(copy.isThreefoldRepetition());
+    }
+
+    @Test
+    @DisplayName("Move lists travel with the game")
+    public void moveList() {
+        ChessGame game = new ChessGame();
+        MoveList moves = new MoveList();
+        game.legalMoves(moves);
+
+        ByteBuffer buffer = ByteBuffer.allocate(GameCodec.encodedSize(game, moves) + 1);
+        GameCodec.encode(game, moves, buffer);
+        buffer.put((byte) 7).flip();
+
+        MoveList decoded = new MoveList();
+        decoded.add(Move.NONE);
+        ChessGame copy = GameCodec.decode(buffer, decoded);
+        Assertions.assertEquals(game.toFen(), copy.toFen());
+        Assertions.assertEquals(moves.size(), decoded.size());
+        for (int i = 0; i < moves.size(); i++) {
+            Assertions.assertEquals(Move.withoutFlags(moves.get(i)), decoded.get(i));
+        }
+        Assertions.assertEquals(7, buffer.get(), "Decoding stops at the end of the game");
+    }
+
+    @Test
+    @DisplayName("Unknown or damaged data is rejected")
+    public void rejected() {
+        byte[] data = GameCodec.encode(new ChessGame());
+        byte[] future = data.clone();
+        future[0] = (byte) (GameCodec.VERSION + 1);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(future));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> GameCodec.decode(Arrays.copyOf(data, data.length - 1)));
+        byte[] badPiece = data.clone();
+        badPiece[20] = (byte) 0xDD;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(badPiece));
+    }
+}
@@ -0,0 +1,167 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Perft counts against the published reference values at
+ * https://www.chessprogramming.org/Perft_Results. Each run prints its
+ * throughput in nodes per second.
+ * <p>
+ * The default run stays at depths that finish in a few seconds. The deep
+ * depths (5-6) run with {@code mvn -pl shared test -Dperft.deep=true}.
+ */
+public class PerftTests {
+
+    private static final String KIWIPETE =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+
+    private static final String POSITION_4 =
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+
+    private static final String POSITION_5 = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+
+    private static final String POSITION_6 =
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+
+    private static void assertPerft(String name, ChessGame game, int depth, long expected) {
+        long start = System.nanoTime();
+        long nodes = Perft.perft(game, depth);
+        long elapsed = Math.max(System.nanoTime() - start, 1);
+        System.out.printf("perft %s depth %d: %,d nodes in %.1f ms (%,.0f nodes/s)%n",
+                name, depth, nodes, elapsed / 1e6, nodes * 1e9 / elapsed);
+        Assertions.assertEquals(expected, nodes, "Wrong perft count for " + name + " at depth " + depth);
+    }
+
+    @Test
+    @DisplayName("Start position")
+    public void startPosition() {
+        ChessGame game = new ChessGame();
+        assertPerft("start", game, 1, 20);
+        assertPerft("start", game, 2, 400);
+        assertPerft("start", game, 3, 8_902);
+        assertPerft("start", game, 4, 197_281);
+        assertPerft("start", game, 5, 4_865_609);
+    }
+
+    @Test
+    @DisplayName("Position 3")
+    public void position3() {
+        ChessGame game = ChessGame.fromFen(POSITION_3);
+        assertPerft("position 3", game, 1, 14);
+        assertPerft("position 3", game, 2, 191);
+        assertPerft("position 3", game, 3, 2_812);
+        assertPerft("position 3", game, 4, 43_238);
+        assertPerft("position 3", game, 5, 674_624);
+    }
+
+    @Test
+    @DisplayName("Kiwipete")
+    public void kiwipete() {
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        assertPerft("kiwipete", game, 1, 48);
+        assertPerft("kiwipete", game, 2, 2_039);
+        assertPerft("kiwipete", game, 3, 97_862);
+        assertPerft("kiwipete", game, 4, 4_085_603);
+    }
+
+    @Test
+    @DisplayName("Position 4")
+    public void position4() {
+        ChessGame game = ChessGame.fromFen(POSITION_4);
+        assertPerft("position 4", game, 1, 6);
+        assertPerft("position 4", game, 2, 264);
+        assertPerft("position 4", game, 3, 9_467);
+        assertPerft("position 4", game, 4, 422_333);
+    }
+
+    @Test
+    @DisplayName("Position 5")
+    public void position5() {
+        ChessGame game = ChessGame.fromFen(POSITION_5);
+        assertPerft("position 5", game, 1, 44);
+        assertPerft("position 5", game, 2, 1_486);
+        assertPerft("position 5", game, 3, 62_379);
+        assertPerft("position 5", game, 4, 2_103_487);
+    }
+
+    @Test
+    @DisplayName("Position 6")
+    public void position6() {
+        ChessGame game = ChessGame.fromFen(POSITION_6);
+        assertPerft("position 6", game, 1, 46);
+        assertPerft("position 6", game, 2, 2_079);
+        assertPerft("position 6", game, 3, 89_890);
+        assertPerft("position 6", game, 4, 3_894_594);
+    }
+
+    /**
+     * Counts the flagged moves among the leaves two plies deep, as
+     * {captures, en passant, castles, promotions}
+     */
+    private static long[] leafFlags(ChessGame game) {
+        long[] counts = new long[4];
+        MoveList root = new MoveList();
+        MoveList replies = new MoveList();
+        MoveUndo undo = new MoveUndo();
+        game.legalMoves(root);
+        for (int i = 0; i < root.size(); i++) {
+            game.makeMove(root.get(i), undo);
+            game.legalMoves(replies);
+            for (int j = 0; j < replies.size(); j++) {
+                int move = replies.get(j);
+                counts[0] += Move.isCapture(move) ? 1 : 0;
+                counts[1] += (move & Move.EN_PASSANT) != 0 ? 1 : 0;
+                counts[2] += (move & Move.CASTLE) != 0 ? 1 : 0;
+                counts[3] += Move.isPromotion(move) ? 1 : 0;
+            }
+            game.unmakeMove(undo);
+        }
+        return counts;
+    }
+
+    @Test
+    @DisplayName("Move flags")
+    public void moveFlags() {
+        Assertions.assertArrayEquals(new long[]{351, 1, 91, 0},
+                leafFlags(ChessGame.fromFen(KIWIPETE)), "Kiwipete depth 2");
+        Assertions.assertArrayEquals(new long[]{87, 0, 6, 48},
+                leafFlags(ChessGame.fromFen(POSITION_4)), "Position 4 depth 2");
+    }
+
+    @Test
+    @DisplayName("Walk leaves the game unchanged")
+    public void walkRestoresGame() {
+        ChessGame game = ChessGame.fromFen(POSITION_6);
+        Perft.perft(game, 3);
+        Assertions.assertEquals(POSITION_6, game.toFen());
+    }
+
+    @Test
+    @DisplayName("Start position, deep")
+    @EnabledIfSystemProperty(named = "perft.deep", matches = "true")
+    public void startPositionDeep() {
+        ChessGame game = new ChessGame();
+        assertPerft("start", game, 6, 119_060_324);
+    }
+
+    @Test
+    @DisplayName("Kiwipete, deep")
+    @EnabledIfSystemProperty(named = "perft.deep", matches = "true")
+    public void kiwipeteDeep() {
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        assertPerft("kiwipete", game, 5, 193_690_690);
+    }
+
+    @Test
+    @DisplayName("Position 3, deep")
+    @EnabledIfSystemProperty(named = "perft.deep", matches = "true")
+    public void position3Deep() {
+        ChessGame game = ChessGame.fromFen(POSITION_3);
+        assertPerft("position 3", game, 6, 11_030_083);
+    }
+}
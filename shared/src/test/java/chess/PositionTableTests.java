@@ -0,0 +1,85 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static passoff.chess.TestUtilities.loadBoard;
+
+public class PositionTableTests {
+
+    @Test
+    @DisplayName("Stored entries read back")
+    public void roundTrip() {
+        PositionTable table = new PositionTable(1);
+        PositionTable.Entry entry = new PositionTable.Entry();
+        long key = 0x1234_5678_9ABC_DEF0L;
+        int move = Move.encode(12, 28, null, Move.DOUBLE_PUSH);
+
+        Assertions.assertFalse(table.probe(key, entry));
+        table.storeSearch(key, 9, -1234, PositionTable.BOUND_LOWER, move);
+        Assertions.assertTrue(table.probe(key, entry));
+        Assertions.assertEquals(9, entry.depth());
+        Assertions.assertEquals(-1234, entry.score());
+        Assertions.assertEquals(PositionTable.BOUND_LOWER, entry.bound());
+        Assertions.assertEquals(move, entry.move());
+        Assertions.assertEquals(PositionTable.STATUS_UNKNOWN, entry.status());
+    }
+
+    @Test
+    @DisplayName("Status and search results share an entry")
+    public void merge() {
+        PositionTable table = new PositionTable(1);
+        PositionTable.Entry entry = new PositionTable.Entry();
+        long key = 42;
+
+        table.storeStatus(key, 0xFF00L, PositionTable.STATUS_CHECK);
+        table.storeSearch(key, 3, 77, PositionTable.BOUND_EXACT, Move.NONE);
+        Assertions.assertTrue(table.probe(key, entry));
+        Assertions.assertEquals(0xFF00L, entry.movable());
+        Assertions.assertEquals(PositionTable.STATUS_CHECK, entry.status());
+        Assertions.assertEquals(77, entry.score());
+
+        table.storeStatus(key, 0xFF00L, PositionTable.STATUS_CHECK);
+        Assertions.assertTrue(table.probe(key, entry));
+        Assertions.assertEquals(3, entry.depth());
+    }
+
+    @Test
+    @DisplayName("A different key in the same slot misses")
+    public void collision() {
+        PositionTable table = new PositionTable(1);
+        PositionTable.Entry entry = new PositionTable.Entry();
+        long key = 7;
+        long other = key + ((long) table.capacity() << 4);
+
+        table.storeStatus(key, 1, PositionTable.STATUS_NORMAL);
+        Assertions.assertFalse(table.probe(other, entry));
+        table.storeStatus(other, 2, PositionTable.STATUS_NORMAL);
+        Assertions.assertFalse(table.probe(key, entry));
+        Assertions.assertTrue(table.probe(other, entry));
+    }
+
+    @Test
+    @DisplayName("Cached status agrees with a fresh game")
+    public void cachedStatus() {
+        String stalemate = """
+                | | | | | | | |k|
+                | | | | | |Q| | |
+                | | | | | | |K| |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """;
+        for (int i = 0; i < 2; i++) {
+            ChessGame game = new ChessGame();
+            game.setBoard(loadBoard(stalemate));
+            game.setTeamTurn(ChessGame.TeamColor.BLACK);
+            Assertions.assertFalse(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+            Assertions.assertTrue(game.isInStalemate(ChessGame.TeamColor.BLACK));
+            Assertions.assertTrue(game.validMoves(new ChessPosition(8, 8)).isEmpty());
+        }
+    }
+}
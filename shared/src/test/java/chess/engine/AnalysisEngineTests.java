@@ -0,0 +1,75 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.PositionTable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static passoff.chess.TestUtilities.loadBoard;
+
+public class AnalysisEngineTests {
+
+    private static final String BACK_RANK_MATE = """
+            | | | | | | | |k|
+            | | | | | | |p|p|
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | |P|P|P|
+            |R| | | | | |K| |
+            """;
+
+    @Test
+    @DisplayName("Deterministic mode repeats itself exactly")
+    public void deterministic() {
+        try (AnalysisEngine engine = AnalysisEngine.deterministic()) {
+            SearchResult first = engine.analyze(new ChessGame(), SearchLimits.depth(5));
+            SearchResult second = engine.analyze(new ChessGame(), SearchLimits.depth(5));
+            Assertions.assertEquals(first.bestMove(), second.bestMove());
+            Assertions.assertEquals(first.score(), second.score());
+            Assertions.assertEquals(first.nodes(), second.nodes());
+        }
+    }
+
+    @Test
+    @DisplayName("Helper threads agree on a forced mate")
+    public void parallelMate() {
+        ChessGame game = new ChessGame();
+        game.setBoard(loadBoard(BACK_RANK_MATE));
+        try (AnalysisEngine engine = new AnalysisEngine(4, new PositionTable(4))) {
+            SearchResult result = engine.analyze(game, SearchLimits.depth(5));
+            ChessMove mate = new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null);
+            Assertions.assertEquals(mate, result.bestMove());
+            Assertions.assertEquals(1, result.mateIn());
+        }
+    }
+
+    @Test
+    @DisplayName("Time budget holds with helper threads")
+    public void parallelTimeBudget() {
+        try (AnalysisEngine engine = new AnalysisEngine(4, new PositionTable(4))) {
+            SearchResult result = engine.analyze(new ChessGame(), SearchLimits.millis(50));
+            Assertions.assertNotNull(result.bestMove());
+            Assertions.assertTrue(result.elapsedNanos() < 150_000_000L, "Took " + result.elapsedNanos() / 1e6 + " ms");
+        }
+    }
+
+    @Test
+    @DisplayName("A game does not wait for helpers queued behind another")
+    public void queuedHelpersAreSkipped() throws Exception {
+        try (AnalysisEngine engine = new AnalysisEngine(2, new PositionTable(4))) {
+            // The first game's helper holds the only pool thread for its whole budget
+            Thread other = new Thread(() -> engine.analyze(new ChessGame(), SearchLimits.millis(400)));
+            other.start();
+            Thread.sleep(50);
+            SearchResult result = engine.analyze(new ChessGame(), SearchLimits.millis(50));
+            Assertions.assertNotNull(result.bestMove());
+            Assertions.assertTrue(result.elapsedNanos() < 250_000_000L, "Took " + result.elapsedNanos() / 1e6 + " ms");
+            other.join();
+        }
+    }
+}
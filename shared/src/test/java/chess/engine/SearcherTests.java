@@ -0,0 +1,124 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static passoff.chess.TestUtilities.loadBoard;
+
+public class SearcherTests {
+
+    private static final String BACK_RANK_MATE = """
+            | | | | | | | |k|
+            | | | | | | |p|p|
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | |P|P|P|
+            |R| | | | | |K| |
+            """;
+
+    private static final String HANGING_QUEEN = """
+            | | | | | | | |k|
+            | | | | | | |p|p|
+            | | | | | | | | |
+            | | | | |q| | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | |P|P|P|
+            | | | | |R| |K| |
+            """;
+
+    private static final String MATED = """
+            |R| | | | | | |k|
+            | | | | | | |p|p|
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | |P|P|P|
+            | | | | | | |K| |
+            """;
+
+    private static ChessGame load(String boardText, ChessGame.TeamColor turn) {
+        ChessGame game = new ChessGame();
+        game.setBoard(loadBoard(boardText));
+        game.setTeamTurn(turn);
+        return game;
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+
+    @Test
+    @DisplayName("Finds a mate in one")
+    public void mateInOne() {
+        SearchResult result = new Searcher().search(load(BACK_RANK_MATE, ChessGame.TeamColor.WHITE),
+                SearchLimits.depth(4));
+        Assertions.assertEquals(move(1, 1, 8, 1), result.bestMove());
+        Assertions.assertTrue(result.isMate());
+        Assertions.assertEquals(1, result.mateIn());
+    }
+
+    @Test
+    @DisplayName("Takes a hanging queen")
+    public void hangingQueen() {
+        SearchResult result = new Searcher().search(load(HANGING_QUEEN, ChessGame.TeamColor.WHITE),
+                SearchLimits.depth(4));
+        Assertions.assertEquals(move(1, 5, 5, 5), result.bestMove());
+        Assertions.assertTrue(result.score() > Evaluator.value(ChessPiece.PieceType.ROOK));
+    }
+
+    @Test
+    @DisplayName("No move when already mated")
+    public void alreadyMated() {
+        SearchResult result = new Searcher().search(load(MATED, ChessGame.TeamColor.BLACK), SearchLimits.depth(3));
+        Assertions.assertNull(result.bestMove());
+        Assertions.assertTrue(result.isMate());
+    }
+
+    @Test
+    @DisplayName("Search leaves the game unchanged")
+    public void searchLeavesGameUnchanged() {
+        ChessGame game = new ChessGame();
+        ChessBoard before = new ChessBoard(game.getBoard());
+        long key = game.getZobristKey();
+        new Searcher().search(game, SearchLimits.depth(4));
+        Assertions.assertEquals(before, game.getBoard());
+        Assertions.assertEquals(key, game.getZobristKey());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+
+    @Test
+    @DisplayName("Stops at the node budget")
+    public void nodeBudget() {
+        SearchResult result = new Searcher().search(new ChessGame(), SearchLimits.nodes(5_000));
+        Assertions.assertTrue(result.nodes() <= 5_000, "Visited " + result.nodes() + " nodes");
+        Assertions.assertNotNull(result.bestMove());
+    }
+
+    @Test
+    @DisplayName("Stops at the time budget")
+    public void timeBudget() {
+        SearchResult result = new Searcher().search(new ChessGame(), SearchLimits.millis(30));
+        Assertions.assertTrue(result.elapsedNanos() < 100_000_000L, "Took " + result.elapsedNanos() / 1e6 + " ms");
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertTrue(result.depth() >= 1);
+    }
+
+    @Test
+    @DisplayName("Start position evaluates as level")
+    public void evaluationSymmetric() {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(0, Evaluator.evaluate(game));
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals(0, Evaluator.evaluate(game));
+    }
+}
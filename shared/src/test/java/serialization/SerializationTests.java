@@ -0,0 +1,101 @@
+package serialization;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import websocket.commands.MakeMove;
+import websocket.commands.UserGameCommand;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.Notification;
+import websocket.messages.ServerMessage;
+
+public class SerializationTests {
+
+    private final Gson gson = Serialization.gson();
+
+    @Test
+    @DisplayName("Moves are UCI strings")
+    public void moves() {
+        ChessMove move = new ChessMove(new ChessPosition(7, 5), new ChessPosition(8, 5), ChessPiece.PieceType.QUEEN);
+        Assertions.assertEquals("\"e7e8q\"", gson.toJson(move));
+        Assertions.assertEquals(move, gson.fromJson("\"e7e8q\"", ChessMove.class));
+        Assertions.assertEquals(move, gson.fromJson(new Gson().toJson(move), ChessMove.class), "Reflective form");
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson("\"e7e9\"", ChessMove.class));
+    }
+
+    @Test
+    @DisplayName("Boards are FEN placements")
+    public void boards() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        Assertions.assertEquals("\"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR\"", gson.toJson(board));
+        Assertions.assertEquals(board, gson.fromJson(gson.toJson(board), ChessBoard.class));
+        Assertions.assertEquals(board, gson.fromJson(new Gson().toJson(board), ChessBoard.class), "Reflective form");
+    }
+
+    @Test
+    @DisplayName("Messages come back as their own class")
+    public void messages() {
+        ServerMessage notification = gson.fromJson(gson.toJson(new Notification("hello")), ServerMessage.class);
+        Assertions.assertInstanceOf(Notification.class, notification);
+        Assertions.assertEquals("hello", ((Notification) notification).getMessage());
+
+        ServerMessage loadGame = gson.fromJson(gson.toJson(new LoadGameMessage(new GameData(3, "g", new ChessGame()))),
+                ServerMessage.class);
+        Assertions.assertEquals(3, ((LoadGameMessage) loadGame).getGame().getGameID());
+
+        ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        String json = gson.toJson(new MakeMove(UserGameCommand.CommandType.MAKE_MOVE, "token", 3, move));
+        UserGameCommand command = gson.fromJson(json, UserGameCommand.class);
+        Assertions.assertEquals(move, ((MakeMove) command).getChessMove());
+        Assertions.assertEquals("token", command.getAuthToken());
+
+        UserGameCommand connect = gson.fromJson(
+                gson.toJson(new UserGameCommand(UserGameCommand.CommandType.CONNECT, "token", 3)), UserGameCommand.class);
+        Assertions.assertEquals(UserGameCommand.class, connect.getClass());
+    }
+
+    @Test
+    @DisplayName("Games round trip inside game data")
+    public void games() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+        GameData data = new GameData(7, "fool's mate", game);
+
+        GameData copy = gson.fromJson(gson.toJson(data), GameData.class);
+        Assertions.assertEquals(game.toFen(), copy.getGame().toFen());
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, copy.getGame().getStatus());
+        Assertions.assertTrue(copy.getGame().isGameOver());
+        Assertions.assertEquals("fool's mate", copy.getGameName());
+
+        ChessGame legacy = gson.fromJson(new Gson().toJson(game), ChessGame.class);
+        Assertions.assertEquals(game.toFen(), legacy.toFen(), "Reflective form");
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson("{\"fen\":\"8/8 w\"}", ChessGame.class));
+    }
+
+    @Test
+    @DisplayName("A stored status is trusted rather than worked out again")
+    public void storedStatus() {
+        String start = new ChessGame().toFen();
+        ChessGame stored = gson.fromJson("{\"fen\":\"" + start + "\",\"status\":\"CHECKMATE\",\"gameOver\":true}",
+                ChessGame.class);
+        Assertions.assertEquals(ChessGame.GameStatus.CHECKMATE, stored.getStatus());
+        Assertions.assertTrue(stored.isGameOver());
+
+        ChessGame missing = gson.fromJson("{\"fen\":\"" + start + "\"}", ChessGame.class);
+        Assertions.assertEquals(ChessGame.GameStatus.NORMAL, missing.getStatus());
+        Assertions.assertFalse(missing.isGameOver());
+    }
+}